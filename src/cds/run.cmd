@@ -0,0 +1,5 @@
+@echo off
+rem Start the application with the AppCDS archive of the "cds" maven profile (see pom.xml) : the classes of Spring, Hibernate,
+rem Thymeleaf, Spring HATEOAS... are mapped from springboot.jsa instead of being loaded from the jars.
+rem The class path must be the one of the training run : keep this script, the jar, the archive and "lib" together.
+java -XX:SharedArchiveFile="%~dp0springboot.jsa" -cp "%~dp0@project.build.finalName@-cds.jar;%~dp0lib\*" tutorial.springboot.SpringbootApplication %*
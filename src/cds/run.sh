@@ -0,0 +1,7 @@
+#!/bin/sh
+# Start the application with the AppCDS archive of the "cds" maven profile (see pom.xml) : the classes of Spring, Hibernate,
+# Thymeleaf, Spring HATEOAS... are mapped from springboot.jsa instead of being loaded from the jars.
+# The class path must be the one of the training run : keep this script, the jar, the archive and "lib" together.
+DIR=$(cd "$(dirname "$0")" && pwd)
+exec java -XX:SharedArchiveFile="$DIR/springboot.jsa" -cp "$DIR/@project.build.finalName@-cds.jar:$DIR/lib/*" \
+	tutorial.springboot.SpringbootApplication "$@"
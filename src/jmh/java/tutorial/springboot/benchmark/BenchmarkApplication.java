@@ -0,0 +1,78 @@
+package tutorial.springboot.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tutorial.springboot.SpringbootApplication;
+
+/**
+ * The whole application, started for benchmarks on a temporary SQLite data base file, so that benchmarks never modify
+ * "sqlitesample.db". The file is filled by LoadDatabase and FillSqliteTables, as at a normal startup.<br/>
+ * <br/>
+ * Benchmarks get the beans they measure from it, so they are configured exactly as when serving requests.
+ */
+public final class BenchmarkApplication {
+
+	private final File dataBase;
+	private final ConfigurableApplicationContext context;
+
+	private BenchmarkApplication(File dataBase, ConfigurableApplicationContext context) {
+		this.dataBase = dataBase;
+		this.context = context;
+	}
+
+	public static BenchmarkApplication start() throws IOException {
+		File dataBase = Files.createTempFile("springboot-benchmark", ".db").toFile();
+
+		ConfigurableApplicationContext context = new SpringApplication(SpringbootApplication.class).run(
+				"--spring.datasource.url=jdbc:sqlite:" + dataBase.getAbsolutePath(),
+				// Any free port : benchmarks call the beans directly, not through HTTP.
+				"--server.port=0",
+				"--logging.level.root=WARN",
+				"--spring.main.banner-mode=off");
+
+		return new BenchmarkApplication(dataBase, context);
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	/**
+	 * For beans whose type is not enough to find them, such as the SecurityFilterChain beans.
+	 */
+	public <T> T getBean(String name, Class<T> type) {
+		return context.getBean(name, type);
+	}
+
+	/**
+	 * ObjectMapper used by Spring MVC to write HAL responses ("application/hal+json"), as for "/employees/{id}". It is not the
+	 * ObjectMapper bean : Spring HATEOAS configures its own copy, knowing how to write links.
+	 */
+	public ObjectMapper halObjectMapper() {
+		return context.getBean(RequestMappingHandlerAdapter.class).getMessageConverters().stream()
+				.filter(MappingJackson2HttpMessageConverter.class::isInstance)
+				.map(MappingJackson2HttpMessageConverter.class::cast)
+				.filter(converter -> converter.canWrite(EntityModel.class, MediaTypes.HAL_JSON))
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No HAL message converter found"))
+				.getObjectMapper();
+	}
+
+	public void stop() {
+		context.close();
+		dataBase.delete();
+		new File(dataBase.getAbsolutePath() + "-wal").delete();
+		new File(dataBase.getAbsolutePath() + "-shm").delete();
+	}
+}
@@ -0,0 +1,130 @@
+package tutorial.springboot.rest_application;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tutorial.springboot.benchmark.BenchmarkApplication;
+import tutorial.springboot.pagination.KeysetPageRequest;
+
+/**
+ * Benchmarks of what is done to serve "/employees/{id}" and "/employees" : reading employees from the data base, converting
+ * them to models with links, and writing the models as HAL JSON.<br/>
+ * <br/>
+ * This class is in the same package as Employee, to use its package-private constructor. Each benchmark returns its result, so
+ * that JMH consumes it and the JIT can not remove the measured code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeBenchmark {
+
+	private static final String BASE_URI = "http://localhost:8080";
+
+	private BenchmarkApplication application;
+	private EmployeeRepository repository;
+	private EmployeeModelAssembler assembler;
+	private ObjectMapper halObjectMapper;
+
+	private Employee employee;
+	private EntityModel<Employee> employeeModel;
+	/** A full page of employees, plus the row telling there is a next page (see KeysetPageRequest). */
+	private List<Employee> page;
+	private long savedEmployeeId;
+	private long saves;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		application = BenchmarkApplication.start();
+		repository = application.getBean(EmployeeRepository.class);
+		assembler = application.getBean(EmployeeModelAssembler.class);
+		halObjectMapper = application.halObjectMapper();
+
+		employee = repository.save(new Employee("Samwise", "Gamgee", "gardener"));
+		employeeModel = assembler.toModel(employee, BASE_URI);
+
+		page = new ArrayList<>();
+		for (int i = 0; i <= KeysetPageRequest.DEFAULT_SIZE; i++) {
+			Employee row = new Employee("First name " + i, "Last name " + i, "Role " + i);
+			row.setId((long) i + 1);
+			page.add(row);
+		}
+
+		savedEmployeeId = repository.save(new Employee("Peregrin", "Took", "fool")).getId();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		application.stop();
+	}
+
+	@Benchmark
+	public EntityModel<Employee> assemblerToModel() {
+		return assembler.toModel(employee, BASE_URI);
+	}
+
+	/**
+	 * Same work as EmployeeController.all() once the page is read : models of each employee, plus the self and next links.
+	 */
+	@Benchmark
+	public CollectionModel<EntityModel<Employee>> assemblerCollection() {
+		KeysetPageRequest request = KeysetPageRequest.of(null, null);
+		Link next = linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel(IanaLinkRelations.NEXT);
+
+		return request.toCollectionModel(page,
+				row -> assembler.toModel(row, BASE_URI),
+				Employee::getId,
+				linkTo(methodOn(EmployeeController.class).all(null, null, null)).withSelfRel().expand(),
+				lastId -> next.expand(lastId, request.getSize()));
+	}
+
+	@Benchmark
+	public byte[] serializeEntityModel() throws JsonProcessingException {
+		return halObjectMapper.writeValueAsBytes(employeeModel);
+	}
+
+	/**
+	 * Uncached read (see findCachedById() for the cached one), as done before modifying an employee.
+	 */
+	@Benchmark
+	public Employee repositoryFindById() {
+		return repository.findById(employee.getId()).orElseThrow();
+	}
+
+	@Benchmark
+	public Employee repositoryFindCachedById() {
+		return repository.findCachedById(employee.getId()).orElseThrow();
+	}
+
+	/**
+	 * Update of an existing employee, as done by EmployeeController.replaceEmployee() : the employee is read, modified (its 
+	 * version is checked and incremented, see Employee) and saved. Out of a request, the read employee is detached : save() merges
+	 * it, which reads it again before the update and the commit.
+	 */
+	@Benchmark
+	public Employee repositorySave() {
+		Employee saved = repository.findById(savedEmployeeId).orElseThrow();
+		saved.setRole("guard of the citadel " + (++saves));
+		return repository.save(saved);
+	}
+}
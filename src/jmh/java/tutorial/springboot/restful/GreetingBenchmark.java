@@ -0,0 +1,65 @@
+package tutorial.springboot.restful;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tutorial.springboot.benchmark.BenchmarkApplication;
+
+/**
+ * Benchmarks of "/greeting" : building the Greeting (RestfulController.greeting()) and writing it as JSON.<br/>
+ * <br/>
+ * greeting() increments a counter shared by all requests, so it is also measured with 4 threads, to show the cost of this
+ * contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GreetingBenchmark {
+
+	private BenchmarkApplication application;
+	private RestfulController controller;
+	private ObjectMapper objectMapper;
+	private Greeting greeting;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		application = BenchmarkApplication.start();
+		controller = application.getBean(RestfulController.class);
+		objectMapper = application.getBean(ObjectMapper.class);
+		greeting = controller.greeting("World");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		application.stop();
+	}
+
+	@Benchmark
+	public Greeting greeting() {
+		return controller.greeting("World");
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Greeting greetingContended() {
+		return controller.greeting("World");
+	}
+
+	@Benchmark
+	public byte[] serializeGreeting() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(greeting);
+	}
+}
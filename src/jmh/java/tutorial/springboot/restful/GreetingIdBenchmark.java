@@ -0,0 +1,76 @@
+package tutorial.springboot.restful;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compare the shared AtomicLong previously used by RestfulController with GreetingIdAllocator, from 1 to 64 threads.<br/>
+ * <br/>
+ * JMH can not take the number of threads as a @Param, so each one has its own method. Results are in operations per
+ * microsecond for all threads together : with the AtomicLong, they barely grow (or even drop) with more threads, while the
+ * allocator's should grow with the number of cores. No Spring context is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GreetingIdBenchmark {
+
+	private final AtomicLong atomicLong = new AtomicLong();
+	private final GreetingIdAllocator allocator = new GreetingIdAllocator();
+
+	@Benchmark
+	@Threads(1)
+	public long atomicLong_01() {
+		return atomicLong.incrementAndGet();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long atomicLong_04() {
+		return atomicLong.incrementAndGet();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public long atomicLong_16() {
+		return atomicLong.incrementAndGet();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public long atomicLong_64() {
+		return atomicLong.incrementAndGet();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public long allocator_01() {
+		return allocator.nextId();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long allocator_04() {
+		return allocator.nextId();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public long allocator_16() {
+		return allocator.nextId();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public long allocator_64() {
+		return allocator.nextId();
+	}
+}
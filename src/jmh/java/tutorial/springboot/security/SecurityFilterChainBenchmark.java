@@ -0,0 +1,110 @@
+package tutorial.springboot.security;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import tutorial.springboot.benchmark.BenchmarkApplication;
+
+/**
+ * Benchmarks of what Spring Security costs per request on public paths, without the work of the controller (the request ends
+ * where the servlet would be called) :<br/>
+ * - before() : all the requests through the login form's chain, as before publicSecurityFilterChain() and
+ * publicApiSecurityFilterChain() existed (see WebSecurityConfig). The user is logged in, otherwise the request would be redirected
+ * to the login page.<br/>
+ * - after() : the requests through Spring Security's filter, choosing the chain of the path.<br/>
+ * - withoutSecurity() : the same requests without any filter, to tell the cost of the mock requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SecurityFilterChainBenchmark {
+
+	private static final FilterChain SERVLET = (request, response) -> ((HttpServletResponse) response).setStatus(200);
+
+	@Param({ "/hello", "/index.html", "/greeting", "/actuator/health" })
+	private String path;
+
+	private BenchmarkApplication application;
+	private FilterChainProxy formLoginChain;
+	private FilterChainProxy allChains;
+	private MockHttpSession session;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		application = BenchmarkApplication.start();
+
+		formLoginChain = new FilterChainProxy(application.getBean("securityFilterChain", SecurityFilterChain.class));
+		formLoginChain.afterPropertiesSet();
+		allChains = application.getBean("springSecurityFilterChain", FilterChainProxy.class);
+
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(new UsernamePasswordAuthenticationToken("user", null,
+				List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+		session = new MockHttpSession();
+		session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+
+		for (MockHttpServletResponse response : List.of(before(), after())) {
+			if (response.getStatus() != 200) {
+				throw new IllegalStateException(path + " answered " + response.getStatus() + " instead of 200");
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		application.stop();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse before() throws Exception {
+		MockHttpServletRequest request = request();
+		request.setSession(session);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		formLoginChain.doFilter(request, response, SERVLET);
+		return response;
+	}
+
+	@Benchmark
+	public MockHttpServletResponse after() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		allChains.doFilter(request(), response, SERVLET);
+		return response;
+	}
+
+	@Benchmark
+	public MockHttpServletResponse withoutSecurity() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		SERVLET.doFilter(request(), response);
+		return response;
+	}
+
+	private MockHttpServletRequest request() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.setServletPath(path);
+		return request;
+	}
+}
@@ -2,6 +2,7 @@ package tutorial.springboot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * This is the "main" Spring Boot's class, that launch the application and all Spring's process.<br/>
@@ -24,12 +25,22 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class SpringbootApplication {
 
+	/**
+	 * Maximum number of startup steps recorded. Creating a bean is a few steps : the application needs a few thousands.
+	 */
+	private static final int STARTUP_STEPS = 10_000;
+
 	/**
 	 * The main() method uses Spring Boot’s SpringApplication.run() to launch the application. Unlike some old Spring applications,
 	 * there is not a single line of XML, nor web.xml file.<br/>
-	 * This allow to work with pure Java and we did not have to deal with configuring any plumbing or infrastructure.
+	 * This allow to work with pure Java and we did not have to deal with configuring any plumbing or infrastructure.<br/>
+	 * <br/>
+	 * BufferingApplicationStartup keeps the steps of the startup (see StartupConfig), so that Spring Boot Actuator publishes them
+	 * on "/actuator/startup".
 	 */
 	public static void main(String[] args) {
-		SpringApplication.run(SpringbootApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringbootApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 }
@@ -3,6 +3,7 @@ package tutorial.springboot.basics;
 import java.util.Arrays;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,9 +22,13 @@ public class BeansDisplayer {
 	 * by Spring Boot, sorts them then print this list in command prompt in which we have used "mvnw spring-boot:run" to run the
 	 * application.<br/>
 	 * <br/>
-	 * Please not that this list will be printed after all Spring's starting messages.
+	 * Please not that this list will be printed after all Spring's starting messages.<br/>
+	 * <br/>
+	 * @ConditionalOnProperty only declares the bean if "startup.display-beans" is true or absent : the "fast-startup" profile 
+	 * sets it to false (see StartupConfig).
 	 */
 	@Bean
+	@ConditionalOnProperty(name = "startup.display-beans", havingValue = "true", matchIfMissing = true)
 	public CommandLineRunner commandLineRunner(ApplicationContext ctx) {
 		return args -> {
 
@@ -0,0 +1,105 @@
+package tutorial.springboot.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Insert a JSON array of entities in one transaction, using JDBC batches.<br/>
+ * <br/>
+ * Saving rows one by one costs, for each row, a call to the id generator and an INSERT sent alone to the data base. Here :<br/>
+ * - The request's body is read token by token with a Jackson JsonParser : the JSON text is never kept in memory as a whole, only the 
+ * 		entities read from it (at most MAX_ROWS).<br/>
+ * - Entities' ids come from a "pooled-lo" generator (see @SequenceGenerator in Employee) : one call to the generator reserves 50 ids.<br/>
+ * - All entities are persisted in one transaction. When it is committed, Hibernate sends the INSERTs by JDBC batches of 
+ * 		"hibernate.jdbc.batch_size" rows (see application.properties).<br/>
+ * <br/>
+ * The id generator stores its counter in the "hibernate_sequence" table, and updates it with its own connection. SQLite only allows 
+ * one writer at a time : if our transaction had already written rows, the generator would wait for it forever. This is why entities 
+ * are all persisted before the first flush, and why the number of rows in one request is limited.
+ */
+@Component
+public class BatchInserter {
+
+	/**
+	 * Biggest number of rows accepted in one request.
+	 */
+	public static final int MAX_ROWS = 10_000;
+
+	private final ObjectMapper objectMapper;
+	private final EntityManager entityManager;
+	private final TransactionTemplate transaction;
+
+	BatchInserter(ObjectMapper objectMapper, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+		this.objectMapper = objectMapper;
+		this.entityManager = entityManager;
+		this.transaction = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Read a JSON array of "type" objects from "body" and insert them.
+	 * 
+	 * @param body Request's body, containing a JSON array.
+	 * @param type Type of the entities in the array.
+	 * @param prepare Called on each entity before it is persisted (for example to clear a provided id or set a default status).
+	 * @param idOf Give the id of a persisted entity.
+	 * @return The ids of the created entities, in the order of the array.
+	 */
+	public <T> List<Long> insert(InputStream body, Class<T> type, Consumer<T> prepare, Function<T, Long> idOf) {
+		// The body is read before the transaction starts, so a slow client does not keep a data base connection busy.
+		List<T> rows = read(body, type);
+
+		return transaction.execute(status -> {
+			rows.forEach(row -> {
+				prepare.accept(row);
+				entityManager.persist(row);
+			});
+			entityManager.flush();
+			entityManager.clear();
+
+			return rows.stream()
+						.map(idOf)
+						.collect(Collectors.toList());
+		});
+	}
+
+	private <T> List<T> read(InputStream body, Class<T> type) {
+		List<T> rows = new ArrayList<>();
+
+		try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new InvalidBatchException("Request body must be a JSON array");
+			}
+
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+				if (rows.size() == MAX_ROWS) {
+					throw new InvalidBatchException("A batch can't contain more than " + MAX_ROWS + " rows");
+				}
+				rows.add(objectMapper.readValue(parser, type));
+			}
+
+			if (token != JsonToken.END_ARRAY) {
+				throw new InvalidBatchException("Request body must be an array of JSON objects");
+			}
+		} catch (IOException e) {
+			throw new InvalidBatchException("Could not read request body : " + e.getMessage());
+		}
+
+		return rows;
+	}
+}
@@ -0,0 +1,41 @@
+package tutorial.springboot.batch;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.RepresentationModel;
+
+/**
+ * Answer of a batch insertion : the ids of the created entities, and an "item" link to each of them. For example :
+ * 
+	{
+	  "ids": [37, 38],
+	  "_links": {
+	    "item": [
+	      { "href": "http://localhost:8080/employees/37" },
+	      { "href": "http://localhost:8080/employees/38" }
+	    ]
+	  }
+	}
+ * 
+ * Extending RepresentationModel allows to add links to any object, like EntityModel does.
+ */
+public class BatchResult extends RepresentationModel<BatchResult> {
+
+	private final List<Long> ids;
+
+	/**
+	 * @param ids Ids of the created entities.
+	 * @param itemHref Give the href of the entity whose id is provided.
+	 */
+	public BatchResult(List<Long> ids, Function<Long, String> itemHref) {
+		this.ids = ids;
+		ids.forEach(id -> add(Link.of(itemHref.apply(id), IanaLinkRelations.ITEM)));
+	}
+
+	public List<Long> getIds() {
+		return ids;
+	}
+}
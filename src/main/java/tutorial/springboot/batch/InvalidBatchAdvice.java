@@ -0,0 +1,22 @@
+package tutorial.springboot.batch;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Answer "400 Bad Request" with the exception's message when a batch can't be inserted. Watch EmployeeNotFoundAdvice for more 
+ * explanations.
+ */
+@ControllerAdvice
+public class InvalidBatchAdvice {
+
+	@ResponseBody
+	@ExceptionHandler(InvalidBatchException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String invalidBatchHandler(InvalidBatchException ex) {
+		return ex.getMessage();
+	}
+}
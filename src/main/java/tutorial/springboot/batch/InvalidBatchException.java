@@ -0,0 +1,12 @@
+package tutorial.springboot.batch;
+
+/**
+ * Thrown when the body of a batch request can't be read or contains too many rows.
+ */
+@SuppressWarnings("serial")
+public class InvalidBatchException extends RuntimeException {
+
+  InvalidBatchException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,22 @@
+package tutorial.springboot.bulkload;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Answer "400 Bad Request" with the exception's message when a bulk load can't be started. Watch EmployeeNotFoundAdvice for more
+ * explanations.
+ */
+@ControllerAdvice
+public class BulkLoadAdvice {
+
+	@ResponseBody
+	@ExceptionHandler(BulkLoadException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String bulkLoadHandler(BulkLoadException ex) {
+		return ex.getMessage();
+	}
+}
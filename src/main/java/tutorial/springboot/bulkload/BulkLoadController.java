@@ -0,0 +1,64 @@
+package tutorial.springboot.bulkload;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Administration of bulk loads (see BulkLoader), for users having the "ADMIN" role (see WebSecurityConfig) :<br/>
+ * - POST "/admin/bulk-loads?table=employees&file=employees.csv" queues the load of a file of "bulk-load.directory", and answers
+ * 		"202 Accepted" at once, with the job's URI in the Location header.<br/>
+ * - GET "/admin/bulk-loads/{id}" shows the job's progress, "/admin/bulk-loads" the recent jobs of this instance.<br/>
+ * <br/>
+ * Loading a file again resumes it where the previous load stopped : this is how a failed or interrupted load is resumed.
+ */
+@RestController
+public class BulkLoadController {
+
+	private final BulkLoader loader;
+
+	BulkLoadController(BulkLoader loader) {
+		this.loader = loader;
+	}
+
+	@PostMapping("/admin/bulk-loads")
+	ResponseEntity<EntityModel<BulkLoadJob>> start(@RequestParam String table, @RequestParam String file) {
+		EntityModel<BulkLoadJob> job = toModel(loader.submit(BulkTable.of(table), file));
+
+		return ResponseEntity.accepted()
+				.location(job.getRequiredLink(IanaLinkRelations.SELF).toUri())
+				.body(job);
+	}
+
+	@GetMapping("/admin/bulk-loads")
+	CollectionModel<EntityModel<BulkLoadJob>> all() {
+		List<EntityModel<BulkLoadJob>> jobs = loader.jobs().stream().map(this::toModel).collect(Collectors.toList());
+
+		return CollectionModel.of(jobs, linkTo(methodOn(BulkLoadController.class).all()).withSelfRel());
+	}
+
+	@GetMapping("/admin/bulk-loads/{id}")
+	ResponseEntity<EntityModel<BulkLoadJob>> one(@PathVariable long id) {
+		BulkLoadJob job = loader.job(id);
+
+		return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(toModel(job));
+	}
+
+	private EntityModel<BulkLoadJob> toModel(BulkLoadJob job) {
+		return EntityModel.of(job,
+				linkTo(methodOn(BulkLoadController.class).one(job.getId())).withSelfRel(),
+				linkTo(methodOn(BulkLoadController.class).all()).withRel("bulk-loads"));
+	}
+}
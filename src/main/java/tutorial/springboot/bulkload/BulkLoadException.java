@@ -0,0 +1,16 @@
+package tutorial.springboot.bulkload;
+
+/**
+ * Thrown when a bulk load can't be started (unknown table, missing file...), or when a record of the file can't be read.
+ */
+@SuppressWarnings("serial")
+public class BulkLoadException extends RuntimeException {
+
+	BulkLoadException(String message) {
+		super(message);
+	}
+
+	BulkLoadException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
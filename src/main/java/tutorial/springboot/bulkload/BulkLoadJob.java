@@ -0,0 +1,157 @@
+package tutorial.springboot.bulkload;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * A load of a file into a table, and its progress, as shown by "/admin/bulk-loads/{id}". For example :
+ *
+	{
+	  "id": 1,
+	  "table": "employees",
+	  "file": "/data/imports/employees.csv",
+	  "state": "RUNNING",
+	  "fileSize": 52428800,
+	  "loadedBytes": 20971520,
+	  "progress": 40.0,
+	  "rows": 650000,
+	  "totalRows": 650000,
+	  "rowsPerSecond": 216000,
+	  ...
+	}
+ *
+ * "rows" counts the rows loaded by this job, "totalRows" also counts those loaded from the same file by interrupted jobs, that
+ * this one resumed. The fields are written by the thread running the load and read by HTTP requests : they are volatile.
+ */
+public class BulkLoadJob {
+
+	public enum State {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	private final long id;
+	private final BulkTable table;
+	private final Path file;
+	private final Instant queuedAt = Instant.now();
+
+	private volatile State state = State.QUEUED;
+	private volatile long fileSize;
+	private volatile long resumedAt;
+	private volatile long loadedBytes;
+	private volatile long previousRows;
+	private volatile long rows;
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+	private volatile long startNanos;
+	private volatile long elapsedNanos;
+	private volatile String error;
+
+	BulkLoadJob(long id, BulkTable table, Path file) {
+		this.id = id;
+		this.table = table;
+		this.file = file;
+	}
+
+	void start() {
+		startNanos = System.nanoTime();
+		startedAt = Instant.now();
+		state = State.RUNNING;
+	}
+
+	void resume(long fileSize, long offset, long previousRows) {
+		this.fileSize = fileSize;
+		this.resumedAt = offset;
+		this.loadedBytes = offset;
+		this.previousRows = previousRows;
+	}
+
+	void progress(long loadedBytes, int rows) {
+		this.loadedBytes = loadedBytes;
+		this.rows += rows;
+	}
+
+	void finish(String error) {
+		elapsedNanos = System.nanoTime() - startNanos;
+		finishedAt = Instant.now();
+		this.error = error;
+		state = error == null ? State.DONE : State.FAILED;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getTable() {
+		return table.getName();
+	}
+
+	BulkTable table() {
+		return table;
+	}
+
+	public String getFile() {
+		return file.toString();
+	}
+
+	Path file() {
+		return file;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * Where this job started to read the file : after the header, or after the part loaded by interrupted jobs.
+	 */
+	public long getResumedAt() {
+		return resumedAt;
+	}
+
+	public long getLoadedBytes() {
+		return loadedBytes;
+	}
+
+	/**
+	 * Percentage of the file loaded.
+	 */
+	public double getProgress() {
+		return fileSize == 0 ? 0 : Math.floor(loadedBytes * 1000.0 / fileSize) / 10;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getTotalRows() {
+		return previousRows + rows;
+	}
+
+	/**
+	 * Rows loaded per second by this job, since it started.
+	 */
+	public long getRowsPerSecond() {
+		long nanos = state == State.RUNNING ? System.nanoTime() - startNanos : elapsedNanos;
+		return nanos == 0 ? 0 : rows * 1_000_000_000 / nanos;
+	}
+
+	public Instant getQueuedAt() {
+		return queuedAt;
+	}
+
+	public Instant getStartedAt() {
+		return startedAt;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+
+	public String getError() {
+		return error;
+	}
+}
@@ -0,0 +1,81 @@
+package tutorial.springboot.bulkload;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of BulkLoader, read from "bulk-load.*" properties. Watch SQLiteProperties for more details on @ConfigurationProperties.
+ */
+@ConfigurationProperties("bulk-load")
+public class BulkLoadProperties {
+
+	/**
+	 * Directory of the files that "/admin/bulk-loads" may load : clients give a path relative to it, and can not read files
+	 * elsewhere on the server. The command line mode (see BulkLoadRunner) loads any file.
+	 */
+	private Path directory = Path.of("imports");
+
+	/**
+	 * Size of the parts of a file parsed by one thread, and written in one transaction. The writer connection is held for the
+	 * transaction : smaller chunks let the application's own writes pass in between.
+	 */
+	private DataSize chunkSize = DataSize.ofMegabytes(1);
+
+	/**
+	 * Number of INSERTs sent to SQLite in one JDBC batch.
+	 */
+	private int batchSize = 500;
+
+	/**
+	 * Number of threads parsing chunks. 0 uses one thread per processor.
+	 */
+	private int parserThreads = 0;
+
+	/**
+	 * How often the progress of a running load is logged.
+	 */
+	private Duration progressInterval = Duration.ofSeconds(5);
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(Path directory) {
+		this.directory = directory;
+	}
+
+	public DataSize getChunkSize() {
+		return chunkSize;
+	}
+
+	public void setChunkSize(DataSize chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getParserThreads() {
+		return parserThreads;
+	}
+
+	public void setParserThreads(int parserThreads) {
+		this.parserThreads = parserThreads;
+	}
+
+	public Duration getProgressInterval() {
+		return progressInterval;
+	}
+
+	public void setProgressInterval(Duration progressInterval) {
+		this.progressInterval = progressInterval;
+	}
+}
@@ -0,0 +1,51 @@
+package tutorial.springboot.bulkload;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command line mode of BulkLoader : started with "--bulk-load.table=employees --bulk-load.file=/data/employees.csv", the
+ * application loads the file once it is started, then stops, with the exit code 0 if the load is done, 1 otherwise. For example :
+ * <br/>
+ * java -jar springboot-1.0.0.jar --bulk-load.table=orders --bulk-load.file=orders.jsonl --spring.main.web-application-type=none
+ * <br/>
+ * Run it again after a failure : it resumes the load where it stopped. Without these arguments, this runner does nothing.
+ */
+@Component
+public class BulkLoadRunner implements ApplicationRunner {
+
+	private final BulkLoader loader;
+	private final ApplicationContext context;
+
+	BulkLoadRunner(BulkLoader loader, ApplicationContext context) {
+		this.loader = loader;
+		this.context = context;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!args.containsOption("bulk-load.file")) {
+			return;
+		}
+
+		BulkLoadJob job = loader.newJob(BulkTable.of(single(args, "bulk-load.table")), Path.of(single(args, "bulk-load.file")));
+		loader.load(job);
+
+		int exitCode = job.getState() == BulkLoadJob.State.DONE ? 0 : 1;
+		System.exit(SpringApplication.exit(context, () -> exitCode));
+	}
+
+	private static String single(ApplicationArguments args, String name) {
+		List<String> values = args.getOptionValues(name);
+		if (values == null || values.size() != 1) {
+			throw new BulkLoadException("--" + name + " must be given once");
+		}
+		return values.get(0);
+	}
+}
@@ -0,0 +1,364 @@
+package tutorial.springboot.bulkload;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import tutorial.springboot.etag.TableVersions;
+import tutorial.springboot.rest_application.OrderStatusCounters;
+import tutorial.springboot.rest_application.Status;
+
+/**
+ * Load millions of rows from a CSV or JSON lines file (see RecordFormat) into a table (see BulkTable). The seeders (LoadDatabase,
+ * FillSqliteTables) and BatchInserter go through JPA, entity by entity, and keep all the rows in memory : this is made for files
+ * far bigger than that.<br/>
+ * <br/>
+ * The file is cut into chunks of "bulk-load.chunk-size" bytes, each ending at a line break, and processed as a pipeline :<br/>
+ * - Reading : each chunk is memory-mapped (FileChannel.map()). The operating system pages the file in as it is read, without
+ * 		copying it into Java buffers first, nor keeping it in the heap.<br/>
+ * - Parsing : chunks are parsed into records on "bulk-load.parser-threads" threads, at most two chunks per thread ahead of the
+ * 		writer, so that memory does not grow with the file.<br/>
+ * - Writing : a single writer (the thread running the load) takes the parsed chunks in the file's order, and writes each one in
+ * 		its own transaction, by JDBC batches of "bulk-load.batch-size" INSERTs through SQLite's writer connection (see
+ * 		SQLiteDataSourceConfig). Between two chunks, the application's own writes get the connection.<br/>
+ * <br/>
+ * Ids are reserved in the chunk's transaction from the "hibernate_sequence" table, as Hibernate does for the entities (watch
+ * Employee) : a whole chunk takes one block of ids. Triggers keep the full-text index up to date (see EmployeeSearchIndex), and
+ * TableVersions and OrderStatusCounters are told about the new rows once the chunk is committed, as JPA's listeners would.<br/>
+ * <br/>
+ * Resuming : the same transaction stores how far the file was loaded, in the "bulk_load_checkpoint" table. The rows of a chunk
+ * and its checkpoint are committed together, or not at all : after a crash (or a bad record), loading the same file again
+ * starts after the last committed chunk, without losing or duplicating rows. A file loaded again after new lines were appended
+ * only loads the new lines.<br/>
+ * <br/>
+ * Progress (percentage of the file, rows, rows per second) is logged every "bulk-load.progress-interval", and is shown by
+ * BulkLoadJob. Loads run one at a time : "/admin/bulk-loads" queues them on a single thread (see BulkLoadController), the command
+ * line mode runs one at startup (see BulkLoadRunner).
+ */
+@Component
+@EnableConfigurationProperties(BulkLoadProperties.class)
+public class BulkLoader {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkLoader.class);
+
+	/**
+	 * Jobs kept for "/admin/bulk-loads", the oldest ones being forgotten.
+	 */
+	private static final int MAX_JOBS = 100;
+
+	/**
+	 * Size of the parts of the file mapped while looking for a line break.
+	 */
+	private static final int SCAN_SIZE = 64 * 1024;
+
+	private final BulkLoadProperties properties;
+	private final ObjectMapper objectMapper;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transaction;
+	private final TableVersions tableVersions;
+	private final OrderStatusCounters orderStatusCounters;
+	private final ThreadPoolTaskExecutor parsers = new ThreadPoolTaskExecutor();
+	private final ThreadPoolTaskExecutor queue = new ThreadPoolTaskExecutor();
+	private final AtomicLong jobIds = new AtomicLong();
+	private final Map<Long, BulkLoadJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, BulkLoadJob> eldest) {
+			return size() > MAX_JOBS;
+		}
+	});
+
+	BulkLoader(BulkLoadProperties properties, ObjectMapper objectMapper, HikariDataSource sqliteWriterPool,
+			TableVersions tableVersions, OrderStatusCounters orderStatusCounters) {
+		this.properties = properties;
+		this.objectMapper = objectMapper;
+		this.jdbcTemplate = new JdbcTemplate(sqliteWriterPool);
+		this.transaction = new TransactionTemplate(new DataSourceTransactionManager(sqliteWriterPool));
+		this.tableVersions = tableVersions;
+		this.orderStatusCounters = orderStatusCounters;
+
+		int parserThreads = properties.getParserThreads() > 0 ? properties.getParserThreads() : Runtime.getRuntime().availableProcessors();
+		parsers.setThreadNamePrefix("bulk-load-parser-");
+		parsers.setCorePoolSize(parserThreads);
+		parsers.setMaxPoolSize(parserThreads);
+		parsers.initialize();
+
+		queue.setThreadNamePrefix("bulk-load-");
+		queue.setCorePoolSize(1);
+		queue.setMaxPoolSize(1);
+		queue.initialize();
+	}
+
+	@PostConstruct
+	void createCheckpointTable() {
+		jdbcTemplate.execute("create table if not exists bulk_load_checkpoint (file varchar not null, table_name varchar not null, "
+				+ "loaded_bytes bigint not null, loaded_rows bigint not null, primary key (file, table_name))");
+	}
+
+	/**
+	 * Interrupt the running load : it stops after its current chunk, and may be resumed by the next start.
+	 */
+	@PreDestroy
+	void shutdown() {
+		queue.shutdown();
+		parsers.shutdown();
+	}
+
+	/**
+	 * Queue the load of a file of "bulk-load.directory".
+	 *
+	 * @param fileName Path of the file, relative to "bulk-load.directory".
+	 */
+	BulkLoadJob submit(BulkTable table, String fileName) {
+		Path file = properties.getDirectory().resolve(fileName);
+		try {
+			// Real paths : neither ".." nor links may lead out of the directory.
+			if (!Files.isRegularFile(file) || !file.toRealPath().startsWith(properties.getDirectory().toRealPath())) {
+				throw new BulkLoadException("No file " + fileName + " in the directory of bulk loads");
+			}
+		} catch (IOException e) {
+			throw new BulkLoadException("No file " + fileName + " in the directory of bulk loads", e);
+		}
+
+		BulkLoadJob job = newJob(table, file);
+		queue.execute(() -> load(job));
+		return job;
+	}
+
+	/**
+	 * A job loading the given file, to be given to load().
+	 */
+	BulkLoadJob newJob(BulkTable table, Path file) {
+		if (!Files.isRegularFile(file)) {
+			throw new BulkLoadException("No file " + file);
+		}
+		BulkLoadJob job = new BulkLoadJob(jobIds.incrementAndGet(), table, file.toAbsolutePath().normalize());
+		jobs.put(job.getId(), job);
+		return job;
+	}
+
+	public BulkLoadJob job(long id) {
+		return jobs.get(id);
+	}
+
+	public List<BulkLoadJob> jobs() {
+		synchronized (jobs) {
+			return new ArrayList<>(jobs.values());
+		}
+	}
+
+	/**
+	 * Run the job in the current thread. It ends DONE, or FAILED with the error : failures are logged, not thrown.
+	 */
+	public synchronized void load(BulkLoadJob job) {
+		job.start();
+		log.info("Bulk load {} : loading {} into {}", job.getId(), job.file(), job.getTable());
+
+		try (FileChannel channel = FileChannel.open(job.file(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long headerEnd = lineEnd(channel, 0, size);
+			RecordFormat format = RecordFormat.of(job.file().getFileName().toString(), job.table(),
+					text(channel, 0, headerEnd), objectMapper);
+
+			String file = job.file().toString();
+			List<long[]> checkpoint = jdbcTemplate.query(
+					"select loaded_bytes, loaded_rows from bulk_load_checkpoint where file = ? and table_name = ?",
+					(row, index) -> new long[] { row.getLong(1), row.getLong(2) }, file, job.getTable());
+			long offset = checkpoint.isEmpty() ? (format.hasHeader() ? headerEnd : 0) : checkpoint.get(0)[0];
+			if (offset > size) {
+				throw new BulkLoadException("The file is shorter than the part already loaded (" + offset + " bytes)");
+			}
+			job.resume(size, offset, checkpoint.isEmpty() ? 0 : checkpoint.get(0)[1]);
+			if (!checkpoint.isEmpty()) {
+				log.info("Bulk load {} : resuming after {} bytes and {} rows", job.getId(), offset, job.getTotalRows());
+			}
+
+			pipeline(job, channel, format, offset, size);
+			job.finish(null);
+			log.info("Bulk load {} : done, {} rows in {} s ({} rows/s)", job.getId(), job.getRows(),
+					Duration.between(job.getStartedAt(), job.getFinishedAt()).toSeconds(), job.getRowsPerSecond());
+		} catch (IOException | RuntimeException e) {
+			Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+			job.finish(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+			log.error("Bulk load {} failed after {} rows, it can be resumed : {}", job.getId(), job.getTotalRows(), job.getError(),
+					cause instanceof BulkLoadException ? null : cause);
+		}
+	}
+
+	private void pipeline(BulkLoadJob job, FileChannel channel, RecordFormat format, long offset, long size) throws IOException {
+		Deque<CompletableFuture<Chunk>> parsed = new ArrayDeque<>();
+		int ahead = parsers.getMaxPoolSize() * 2;
+		long next = offset;
+		long lastLog = System.nanoTime();
+
+		try {
+			while (next < size || !parsed.isEmpty()) {
+				while (next < size && parsed.size() < ahead) {
+					long start = next;
+					long end = lineEnd(channel, Math.min(start + properties.getChunkSize().toBytes(), size) - 1, size);
+					parsed.add(CompletableFuture.supplyAsync(() -> parse(channel, format, start, end), parsers));
+					next = end;
+				}
+
+				if (Thread.currentThread().isInterrupted()) {
+					throw new BulkLoadException("Interrupted");
+				}
+				Chunk chunk = parsed.poll().join();
+				write(job, chunk);
+
+				if (System.nanoTime() - lastLog >= properties.getProgressInterval().toNanos()) {
+					lastLog = System.nanoTime();
+					log.info("Bulk load {} : {}% ({} of {} bytes), {} rows, {} rows/s", job.getId(), job.getProgress(),
+							job.getLoadedBytes(), size, job.getTotalRows(), job.getRowsPerSecond());
+				}
+			}
+		} finally {
+			parsed.forEach(future -> future.cancel(false));
+		}
+	}
+
+	/**
+	 * Write the chunk's records and its checkpoint in one transaction.
+	 */
+	private void write(BulkLoadJob job, Chunk chunk) {
+		BulkTable table = job.table();
+		List<Object[]> records = chunk.records;
+
+		transaction.executeWithoutResult(status -> {
+			if (!records.isEmpty()) {
+				long firstId = jdbcTemplate.queryForObject("select next_val from hibernate_sequence", Long.class);
+				jdbcTemplate.update("update hibernate_sequence set next_val = ?", firstId + records.size());
+				for (int i = 0; i < records.size(); i++) {
+					records.get(i)[0] = firstId + i;
+				}
+
+				jdbcTemplate.batchUpdate(table.getInsertSql(), records, properties.getBatchSize(), (statement, record) -> {
+					for (int i = 0; i < record.length; i++) {
+						statement.setObject(i + 1, record[i]);
+					}
+				});
+				tableVersions.changed(table.getEntity());
+			}
+
+			int updated = jdbcTemplate.update("update bulk_load_checkpoint set loaded_bytes = ?, loaded_rows = loaded_rows + ? "
+					+ "where file = ? and table_name = ?", chunk.end, records.size(), job.getFile(), job.getTable());
+			if (updated == 0) {
+				jdbcTemplate.update("insert into bulk_load_checkpoint (file, table_name, loaded_bytes, loaded_rows) values (?, ?, ?, ?)",
+						job.getFile(), job.getTable(), chunk.end, records.size());
+			}
+		});
+
+		// As OrderController does for the orders it creates.
+		if (table == BulkTable.ORDERS) {
+			Map<Status, Long> counts = new EnumMap<>(Status.class);
+			records.forEach(record -> counts.merge(Status.values()[(Integer) record[BulkTable.STATUS + 1]], 1L, Long::sum));
+			counts.forEach(orderStatusCounters::add);
+		}
+		job.progress(chunk.end, records.size());
+	}
+
+	/**
+	 * Parse the lines from "start" to "end" (just after a line break, or the end of the file). Runs on a parser thread.
+	 */
+	private static Chunk parse(FileChannel channel, RecordFormat format, long start, long end) {
+		List<Object[]> records = new ArrayList<>();
+		byte[] line = new byte[256];
+
+		try {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+			int lineStart = 0;
+			while (lineStart < buffer.limit()) {
+				int lineEnd = lineStart;
+				while (lineEnd < buffer.limit() && buffer.get(lineEnd) != '\n') {
+					lineEnd++;
+				}
+				int length = lineEnd - lineStart;
+				if (length > 0 && buffer.get(lineEnd - 1) == '\r') {
+					length--;
+				}
+
+				if (length > 0) {
+					if (line.length < length) {
+						line = new byte[Math.max(length, line.length * 2)];
+					}
+					buffer.get(lineStart, line, 0, length);
+					try {
+						records.add(format.parse(line, length));
+					} catch (BulkLoadException e) {
+						throw new BulkLoadException("Line at byte " + (start + lineStart) + " : " + e.getMessage(), e);
+					}
+				}
+				lineStart = lineEnd + 1;
+			}
+		} catch (IOException e) {
+			throw new BulkLoadException("Could not read bytes " + start + " to " + end + " : " + e.getMessage(), e);
+		}
+
+		return new Chunk(end, records);
+	}
+
+	/**
+	 * Position just after the first line break found from "from", or the end of the file.
+	 */
+	private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+		for (long position = from; position < size; position += SCAN_SIZE) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SCAN_SIZE, size - position));
+			for (int i = 0; i < buffer.limit(); i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+		}
+		return size;
+	}
+
+	private static String text(FileChannel channel, long start, long end) throws IOException {
+		byte[] bytes = new byte[(int) (end - start)];
+		channel.map(FileChannel.MapMode.READ_ONLY, start, end - start).get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8).strip();
+	}
+
+	/**
+	 * Records parsed from a part of the file, that ends at "end".
+	 */
+	private static final class Chunk {
+
+		private final long end;
+		private final List<Object[]> records;
+
+		private Chunk(long end, List<Object[]> records) {
+			this.end = end;
+			this.records = records;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package tutorial.springboot.bulkload;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import tutorial.springboot.rest_application.Employee;
+import tutorial.springboot.rest_application.Order;
+import tutorial.springboot.rest_application.Status;
+
+/**
+ * Tables that BulkLoader fills, with the fields read from each record (the names of the entity's JSON properties, also used as
+ * CSV column names) and the INSERT statement writing them.<br/>
+ * <br/>
+ * A parsed record is an Object[] of the INSERT's parameters : the id first (given by BulkLoader once ids are reserved), then the
+ * value of each field, converted by convert().
+ */
+enum BulkTable {
+
+	EMPLOYEES("employees", Employee.class, "insert into employee (id, first_name, last_name, role, version) values (?, ?, ?, ?, 0)",
+			"firstName", "lastName", "role"),
+
+	/**
+	 * Migrated orders keep their status, "IN_PROGRESS" when it is missing. Status is stored as its ordinal, as Hibernate does.
+	 */
+	ORDERS("orders", Order.class, "insert into customer_order (id, description, status, version) values (?, ?, ?, 0)",
+			"description", "status") {
+
+		@Override
+		Object convert(int field, String value) {
+			if (field == STATUS) {
+				return status(value).ordinal();
+			}
+			return value;
+		}
+	};
+
+	/**
+	 * Index of the status in the fields of ORDERS. It is at STATUS + 1 in their parsed records, after the id.
+	 */
+	static final int STATUS = 1;
+
+	private final String name;
+	private final Class<?> entity;
+	private final String insertSql;
+	private final String[] fields;
+
+	BulkTable(String name, Class<?> entity, String insertSql, String... fields) {
+		this.name = name;
+		this.entity = entity;
+		this.insertSql = insertSql;
+		this.fields = fields;
+	}
+
+	/**
+	 * The table whose name ("employees", "orders") is given.
+	 */
+	static BulkTable of(String name) {
+		return Arrays.stream(values())
+				.filter(table -> table.name.equalsIgnoreCase(name))
+				.findFirst()
+				.orElseThrow(() -> new BulkLoadException("Unknown table \"" + name + "\", expected one of "
+						+ Arrays.stream(values()).map(BulkTable::getName).collect(Collectors.joining(", "))));
+	}
+
+	/**
+	 * Value of a field, as given to the INSERT. A missing field is null.
+	 */
+	Object convert(int field, String value) {
+		return value;
+	}
+
+	static Status status(String value) {
+		if (value == null || value.isBlank()) {
+			return Status.IN_PROGRESS;
+		}
+		try {
+			return Status.valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new BulkLoadException("Unknown status \"" + value + "\"");
+		}
+	}
+
+	String getName() {
+		return name;
+	}
+
+	Class<?> getEntity() {
+		return entity;
+	}
+
+	String getInsertSql() {
+		return insertSql;
+	}
+
+	String[] getFields() {
+		return fields;
+	}
+}
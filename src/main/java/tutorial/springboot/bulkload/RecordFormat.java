@@ -0,0 +1,173 @@
+package tutorial.springboot.bulkload;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Turn a line of a file into a record of a BulkTable (see BulkTable for its layout). There is one record per line :
+ * <ul>
+ * <li>JSON lines (".jsonl", ".ndjson") : one JSON object per line, as written by the "/.../export" endpoints, for example
+ * {"firstName":"Bilbo","lastName":"Baggins","role":"burglar"}.</li>
+ * <li>CSV (".csv") : a first line naming the columns (the same names as the JSON properties), then comma separated values. A value
+ * may be quoted ("Baggins, Bilbo"), a quote inside being doubled, but may not contain a line break.</li>
+ * </ul>
+ * Properties or columns that the table does not have (such as the ids of another data base) are ignored, missing ones are null.<br/>
+ * <br/>
+ * Formats are immutable once created : one instance parses lines on all the parser threads.
+ */
+abstract class RecordFormat {
+
+	protected final BulkTable table;
+
+	private RecordFormat(BulkTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * The format of the file whose name is given.
+	 *
+	 * @param header The first line of the file, read by CSV only.
+	 */
+	static RecordFormat of(String fileName, BulkTable table, String header, ObjectMapper objectMapper) {
+		String name = fileName.toLowerCase(Locale.ROOT);
+		if (name.endsWith(".csv")) {
+			return new Csv(table, header);
+		}
+		if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+			return new JsonLines(table, objectMapper);
+		}
+		throw new BulkLoadException("Unknown format of " + fileName + ", expected a .csv, .jsonl or .ndjson file");
+	}
+
+	/**
+	 * Whether the first line of the file names the columns, instead of being a record.
+	 */
+	abstract boolean hasHeader();
+
+	/**
+	 * Parse "length" bytes of UTF-8 text from "bytes", without the line break.
+	 */
+	abstract Object[] parse(byte[] bytes, int length);
+
+	protected Object[] record(String[] values) {
+		Object[] record = new Object[table.getFields().length + 1];
+		for (int field = 0; field < values.length; field++) {
+			record[field + 1] = table.convert(field, values[field]);
+		}
+		return record;
+	}
+
+	private static final class JsonLines extends RecordFormat {
+
+		private final ObjectMapper objectMapper;
+
+		private JsonLines(BulkTable table, ObjectMapper objectMapper) {
+			super(table);
+			this.objectMapper = objectMapper;
+		}
+
+		@Override
+		boolean hasHeader() {
+			return false;
+		}
+
+		@Override
+		Object[] parse(byte[] bytes, int length) {
+			JsonNode node;
+			try {
+				node = objectMapper.readTree(bytes, 0, length);
+			} catch (JsonProcessingException e) {
+				throw new BulkLoadException("Invalid JSON : " + e.getOriginalMessage(), e);
+			} catch (IOException e) {
+				throw new BulkLoadException("Invalid JSON : " + e.getMessage(), e);
+			}
+			if (node == null || !node.isObject()) {
+				throw new BulkLoadException("A line must be a JSON object");
+			}
+
+			String[] fields = table.getFields();
+			String[] values = new String[fields.length];
+			for (int field = 0; field < fields.length; field++) {
+				JsonNode value = node.get(fields[field]);
+				values[field] = value == null || value.isNull() ? null : value.asText();
+			}
+			return record(values);
+		}
+	}
+
+	private static final class Csv extends RecordFormat {
+
+		/**
+		 * For each column of the file, the index of the table's field it gives, or -1 if the table does not have it.
+		 */
+		private final int[] fieldOfColumn;
+
+		private Csv(BulkTable table, String header) {
+			super(table);
+			List<String> fields = Arrays.asList(table.getFields());
+			this.fieldOfColumn = split(header).stream().mapToInt(column -> fields.indexOf(column.trim())).toArray();
+		}
+
+		@Override
+		boolean hasHeader() {
+			return true;
+		}
+
+		@Override
+		Object[] parse(byte[] bytes, int length) {
+			List<String> columns = split(new String(bytes, 0, length, StandardCharsets.UTF_8));
+			if (columns.size() > fieldOfColumn.length) {
+				throw new BulkLoadException("A line has " + columns.size() + " values, but the header names " + fieldOfColumn.length
+						+ " columns");
+			}
+
+			String[] values = new String[table.getFields().length];
+			for (int column = 0; column < columns.size(); column++) {
+				if (fieldOfColumn[column] >= 0) {
+					values[fieldOfColumn[column]] = columns.get(column);
+				}
+			}
+			return record(values);
+		}
+
+		private static List<String> split(String line) {
+			List<String> values = new ArrayList<>();
+			StringBuilder value = new StringBuilder();
+			boolean quoted = false;
+
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (quoted) {
+					if (c != '"') {
+						value.append(c);
+					} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						value.append('"');
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else if (c == '"') {
+					quoted = true;
+				} else if (c == ',') {
+					values.add(value.toString());
+					value.setLength(0);
+				} else {
+					value.append(c);
+				}
+			}
+			if (quoted) {
+				throw new BulkLoadException("A quoted value is not closed");
+			}
+			values.add(value.toString());
+			return values;
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package tutorial.springboot.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tutorial.springboot.etag.ETags;
+import tutorial.springboot.etag.TableVersions;
+import tutorial.springboot.rest_application.Employee;
+import tutorial.springboot.rest_application.Order;
+import tutorial.springboot.sqlite.Person;
+
+/**
+ * Cache of the serialized responses of collection endpoints ("/employees", "/orders", "/sqlite_persons"), which are read much 
+ * more often than they change. A cached response is written as is : the page is not read from the data base, nor assembled into 
+ * a CollectionModel, nor serialized into JSON.<br/>
+ * <br/>
+ * A servlet Filter sees each request before Spring MVC (and after Spring Security, whose filters come first). A Filter bean 
+ * (@Component) is registered by Spring Boot for every URL, and shouldNotFilter() skips other requests.<br/>
+ * <br/>
+ * Responses are kept by table, with the table's stamp (see TableVersions) :<br/>
+ * - The stamp is read before anything else, as controllers do. A write method (creation, modification, deletion, batch...) 
+ * 		changes the stamp once committed, and the next request drops all the responses kept for the old stamp.<br/>
+ * - Within a table, responses are keyed by URL (which includes the host used in links), parameters (sorted, so that 
+ * 		"?size=2&after=4" and "?after=4&size=2" share a response), "Accept" header (the requested media type) and compression.<br/>
+ * - A response is only stored if it has a 200 status and the ETag of the stamp read at first : if the table was modified in 
+ * 		between, the body could come from either version, so it is not kept.<br/>
+ * - With "Accept-Encoding: gzip" (and a q-value that is not 0), the response is kept and sent compressed ("Content-Encoding:
+ * 		gzip"), with an ETag of its own, as its body differs (see ETags.ofContentCoding()).<br/>
+ * - The "Vary: Accept, Accept-Encoding" header tells HTTP caches that responses also depend on these request headers.<br/>
+ * - Requests with an "If-None-Match" header go to the controller, which answers "304 Not Modified" without reading anything.
+ * 		The ETag of a compressed response is not the controller's one : it is answered here.<br/>
+ * <br/>
+ * Cached bodies are byte arrays written directly to the response's stream, without any copy or conversion. The 
+ * "collection.response.cache" metric counts hits and misses, with "collection" and "result" tags. Settings are 
+ * "collection-response-cache.*" properties (see CollectionResponseCacheProperties).
+ */
+@Component
+@EnableConfigurationProperties(CollectionResponseCacheProperties.class)
+public class CollectionResponseCacheFilter extends OncePerRequestFilter {
+
+	private static final Map<String, Class<?>> COLLECTIONS = Map.of(
+			"/employees", Employee.class,
+			"/orders", Order.class,
+			"/sqlite_persons", Person.class);
+
+	private final CollectionResponseCacheProperties properties;
+	private final TableVersions tableVersions;
+	private final MeterRegistry meterRegistry;
+	private final Map<Class<?>, TableResponses> tables = new ConcurrentHashMap<>();
+
+	CollectionResponseCacheFilter(CollectionResponseCacheProperties properties, TableVersions tableVersions,
+			MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.tableVersions = tableVersions;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !properties.isEnabled()
+				|| !"GET".equals(request.getMethod())
+				|| !COLLECTIONS.containsKey(collection(request));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String collection = collection(request);
+		String etag = tableVersions.etag(COLLECTIONS.get(collection));
+		TableResponses responses = responses(COLLECTIONS.get(collection), etag);
+
+		boolean gzip = properties.isGzip() && acceptsGzip(request);
+		String responseEtag = gzip ? ETags.ofContentCoding(etag, "gzip") : etag;
+		Key key = new Key(request.getRequestURL().toString(), new TreeMap<>(request.getParameterMap()).entrySet().stream()
+				.map(parameter -> parameter.getKey() + "=" + String.join(",", parameter.getValue()))
+				.collect(Collectors.joining("&")), request.getHeader(HttpHeaders.ACCEPT), gzip);
+		// Shared caches (proxies, browsers) must key the response by the same headers.
+		response.addHeader(HttpHeaders.VARY, properties.isGzip()
+				? HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING
+				: HttpHeaders.ACCEPT);
+
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if (gzip && ifNoneMatch != null && ETags.isListed(ifNoneMatch, responseEtag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			response.setHeader(HttpHeaders.ETAG, responseEtag);
+			return;
+		}
+
+		CachedResponse cached = responses.responses.get(key);
+		if (cached != null && ifNoneMatch == null) {
+			meterRegistry.counter("collection.response.cache", "collection", collection, "result", "hit").increment();
+			write(response, responseEtag, cached);
+			return;
+		}
+		meterRegistry.counter("collection.response.cache", "collection", collection, "result", "miss").increment();
+
+		// The wrapper keeps the body in memory instead of sending it, so that it can be stored. Status and headers are set on the 
+		// response itself.
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		chain.doFilter(request, wrapper);
+
+		if (wrapper.getStatus() != HttpServletResponse.SC_OK || !etag.equals(wrapper.getHeader(HttpHeaders.ETAG))) {
+			wrapper.copyBodyToResponse();
+			return;
+		}
+		byte[] body = wrapper.getContentAsByteArray();
+		cached = new CachedResponse(wrapper.getContentType(), gzip ? gzip(body) : body, gzip);
+		if (responses.responses.size() < properties.getMaxEntriesPerTable()) {
+			responses.responses.put(key, cached);
+		}
+		write(response, responseEtag, cached);
+	}
+
+	/**
+	 * Path of the request within the application, for example "/employees".
+	 */
+	private static String collection(HttpServletRequest request) {
+		return request.getRequestURI().substring(request.getContextPath().length());
+	}
+
+	/**
+	 * Responses kept for the given stamp of a table. If they were kept for another stamp, they are dropped.
+	 */
+	private TableResponses responses(Class<?> table, String etag) {
+		return tables.compute(table, (key, current) -> (current != null && current.etag.equals(etag)) ? current : new TableResponses(etag));
+	}
+
+	private static void write(HttpServletResponse response, String etag, CachedResponse cached) throws IOException {
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setHeader(HttpHeaders.ETAG, etag);
+		response.setContentType(cached.contentType);
+		if (cached.gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		response.setContentLength(cached.body.length);
+		response.getOutputStream().write(cached.body);
+	}
+
+	/**
+	 * Whether the "Accept-Encoding" header accepts gzip, for example "gzip, deflate" or "*". A q-value of 0 ("gzip;q=0") refuses it, 
+	 * and "gzip" itself takes precedence over "*".
+	 */
+	private static boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (acceptEncoding == null) {
+			return false;
+		}
+
+		double gzipQuality = -1;
+		double anyQuality = -1;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim();
+			double quality = 1;
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+				if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+					try {
+						quality = Double.parseDouble(parameter.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+			if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+				gzipQuality = Math.max(gzipQuality, quality);
+			} else if (name.equals("*")) {
+				anyQuality = quality;
+			}
+		}
+		return (gzipQuality >= 0 ? gzipQuality : anyQuality) > 0;
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return compressed.toByteArray();
+	}
+
+	private static final class TableResponses {
+
+		private final String etag;
+		private final Map<Key, CachedResponse> responses = new ConcurrentHashMap<>();
+
+		private TableResponses(String etag) {
+			this.etag = etag;
+		}
+	}
+
+	private static final class Key {
+
+		private final String url;
+		private final String parameters;
+		private final String accept;
+		private final boolean gzip;
+
+		private Key(String url, String parameters, String accept, boolean gzip) {
+			this.url = url;
+			this.parameters = parameters;
+			this.accept = accept;
+			this.gzip = gzip;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+			Key key = (Key) o;
+			return gzip == key.gzip && url.equals(key.url) && parameters.equals(key.parameters) && Objects.equals(accept, key.accept);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(url, parameters, accept, gzip);
+		}
+	}
+
+	private static final class CachedResponse {
+
+		private final String contentType;
+		private final byte[] body;
+		private final boolean gzip;
+
+		private CachedResponse(String contentType, byte[] body, boolean gzip) {
+			this.contentType = contentType;
+			this.body = body;
+			this.gzip = gzip;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package tutorial.springboot.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of CollectionResponseCacheFilter, read from "collection-response-cache.*" properties. Watch SQLiteProperties for more
+ * details on @ConfigurationProperties.
+ */
+@ConfigurationProperties("collection-response-cache")
+public class CollectionResponseCacheProperties {
+
+	/**
+	 * Whether responses of collection endpoints are cached.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Whether responses are also cached gzip-compressed, for clients sending "Accept-Encoding: gzip".
+	 */
+	private boolean gzip = true;
+
+	/**
+	 * Number of responses kept for each table (pages, media types, compressed or not). Once reached, other responses are built 
+	 * for each request, until the table is modified.
+	 */
+	private int maxEntriesPerTable = 1000;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	public int getMaxEntriesPerTable() {
+		return maxEntriesPerTable;
+	}
+
+	public void setMaxEntriesPerTable(int maxEntriesPerTable) {
+		this.maxEntriesPerTable = maxEntriesPerTable;
+	}
+}
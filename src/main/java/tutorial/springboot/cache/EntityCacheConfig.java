@@ -0,0 +1,37 @@
+package tutorial.springboot.cache;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Cache of entities read by id, in the application's memory, to avoid reading the same rows again and again from the data base.<br/>
+ * <br/>
+ * @EnableCaching makes Spring look for cache annotations on beans' methods :<br/>
+ * - @Cacheable on a method returns the cached value for the method's arguments if present. If not, the method is called, and its
+ * 		result is stored into the cache (read-through). See for example EmployeeRepository.findCachedById().<br/>
+ * - @CacheEvict removes the value of a given key from the cache, after the method was called. Repositories' save() and deleteById()
+ * 		use it so that a modified or deleted entity is never read from the cache.<br/>
+ * <br/>
+ * Spring Boot creates the CacheManager itself, from "spring.cache.*" properties (see application.properties). As Caffeine is on the
+ * classpath, caches are Caffeine caches :<br/>
+ * - "maximumSize" bounds the number of entities in each cache. When it is reached, Caffeine evicts entities with its W-TinyLFU
+ * 		policy : a new entity only replaces an old one if it is read more often, so the small set of often read entities stays
+ * 		in the cache, even when many other entities are read once.<br/>
+ * - "expireAfterWrite" removes entities after a given time, in case the table is modified without the repositories (batch
+ * 		inserts, another application...).<br/>
+ * - "recordStats" makes caches count hits, misses and evictions. Spring Boot Actuator publishes them as "cache.gets" (with a
+ * 		"result" tag, "hit" or "miss") and "cache.evictions" metrics, on "/actuator/metrics". Caches are listed on "/actuator/caches".
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class EntityCacheConfig {
+
+	/**
+	 * Names of the caches, also declared in the "spring.cache.cache-names" property so that they are created (and their metrics
+	 * published) at startup.
+	 */
+	public static final String EMPLOYEES = "employees";
+	public static final String ORDERS = "orders";
+	public static final String PERSONS = "persons";
+}
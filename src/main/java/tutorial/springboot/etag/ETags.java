@@ -0,0 +1,88 @@
+package tutorial.springboot.etag;
+
+/**
+ * Build and read the ETags of the application.<br/>
+ * <br/>
+ * An ETag ("entity tag") is a value identifying one state of a resource, sent by the server in the "ETag" header. A client 
+ * having it may then :<br/>
+ * - Send it back in an "If-None-Match" header with a GET : if the resource did not change, the server answers "304 Not 
+ * 		Modified" without body, and the client uses its copy.<br/>
+ * - Send it back in an "If-Match" header with a PUT or DELETE : if the resource changed since the client read it, the server 
+ * 		refuses the modification with "412 Precondition Failed", instead of overwriting another client's modification.<br/>
+ * <br/>
+ * Spring's WebRequest.checkNotModified(etag) compares the "If-None-Match" header with the current ETag, and sets the 304 status. 
+ * It does not read "If-Match" (Spring 5), which is checked by matches().<br/>
+ * Single entities' ETags are their version (see @Version in Employee and Order), for example "3". Collections' ETags come from 
+ * TableVersions. ETags are "strong" (not prefixed by "W/") : two responses with the same ETag have exactly the same body. So a
+ * compressed response has an ETag of its own (see ofContentCoding()).
+ */
+public final class ETags {
+
+	private ETags() {
+	}
+
+	/**
+	 * Strong ETag of an entity with the given version.
+	 */
+	public static String ofVersion(Long version) {
+		return quote(String.valueOf(version));
+	}
+
+	/**
+	 * Version given by an "If-Match" header built by ofVersion(), or null if there is no header or if it is "*" (any version). 
+	 * Other values (several ETags, weak ETags, ETags from elsewhere...) give -1, a version that never matches : they are 
+	 * answered by "412 Precondition Failed".
+	 */
+	public static Long versionOf(String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String value = ifMatch.trim();
+		if (value.length() < 3 || value.charAt(0) != '"' || value.indexOf('"', 1) != value.length() - 1) {
+			return -1L;
+		}
+		try {
+			return Long.valueOf(value.substring(1, value.length() - 1));
+		} catch (NumberFormatException e) {
+			return -1L;
+		}
+	}
+
+	/**
+	 * Whether an "If-Match" header allows modifying an entity of the given version : there is no header, it is "*", or it is the
+	 * entity's ETag.
+	 */
+	public static boolean matches(String ifMatch, Long version) {
+		Long expectedVersion = versionOf(ifMatch);
+		return expectedVersion == null || expectedVersion.equals(version);
+	}
+
+	/**
+	 * Strong ETag of a response compressed with the given coding (for example "gzip"), whose uncompressed version has the given
+	 * ETag : "12-3" gives "12-3-gzip". Its body differs, so its ETag must differ too.
+	 */
+	public static String ofContentCoding(String etag, String coding) {
+		return etag.substring(0, etag.length() - 1) + "-" + coding + '"';
+	}
+
+	/**
+	 * Whether an "If-None-Match" header lists the given ETag, or is "*". ETags are compared without their "W/" prefix, as 
+	 * "If-None-Match" uses the weak comparison.
+	 */
+	public static boolean isListed(String ifNoneMatch, String etag) {
+		for (String listed : ifNoneMatch.split(",")) {
+			String value = listed.trim();
+			if (value.startsWith("W/")) {
+				value = value.substring(2);
+			}
+			if (value.equals("*") || value.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static String quote(String value) {
+		return '"' + value + '"';
+	}
+}
@@ -0,0 +1,30 @@
+package tutorial.springboot.etag;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener changing the stamp of an entity's table (see TableVersions) when one of its rows is created, modified 
+ * or deleted. Entities use it with "@EntityListeners(TableVersionListener.class)".<br/>
+ * <br/>
+ * JPA calls @PostPersist, @PostUpdate and @PostRemove methods after the corresponding SQL statement, for every modification 
+ * done through the EntityManager (repositories, batches...). Queries such as "update ... where ..." are not seen : their callers 
+ * must call TableVersions.changed() themselves (see OrderController).<br/>
+ * Spring Boot lets Hibernate create listeners through Spring, so that their dependencies are injected in their constructor.
+ */
+public class TableVersionListener {
+
+	private final TableVersions tableVersions;
+
+	public TableVersionListener(TableVersions tableVersions) {
+		this.tableVersions = tableVersions;
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void changed(Object entity) {
+		tableVersions.changed(entity.getClass());
+	}
+}
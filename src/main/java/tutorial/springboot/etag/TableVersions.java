@@ -0,0 +1,65 @@
+package tutorial.springboot.etag;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A stamp per table, that changes each time one of its rows is created, modified or deleted. It gives the ETag of collection 
+ * endpoints ("/employees", "/orders") : as long as the stamp is the same, the collection did not change (see ETags).<br/>
+ * <br/>
+ * Stamps are kept in memory. They start from the application's start time, so that a stamp from before a restart is never 
+ * given again for different rows.<br/>
+ * <br/>
+ * A stamp is changed once the transaction that modified the table is committed, never before. A request reading the stamp and 
+ * then the rows may get the new rows with the old stamp (the client will only download them again), but never the old rows with 
+ * the new stamp (the client would keep them until the next modification).
+ */
+@Component
+public class TableVersions {
+
+	private final long startTime = System.currentTimeMillis();
+	private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+	/**
+	 * Strong ETag of the table of the given entity, for example "1665000000000-12".
+	 */
+	public String etag(Class<?> entity) {
+		return ETags.quote(startTime + "-" + version(entity).get());
+	}
+
+	/**
+	 * Change the stamp of the table of the given entity, after the current transaction is committed (or at once without transaction).
+	 * Many rows modified by a single transaction (such as a batch) change the stamp once.
+	 */
+	public void changed(Class<?> entity) {
+		AtomicLong version = version(entity);
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			version.incrementAndGet();
+			return;
+		}
+		// A resource bound to the transaction remembers that the stamp will already be changed by this transaction.
+		if (TransactionSynchronizationManager.hasResource(version)) {
+			return;
+		}
+		TransactionSynchronizationManager.bindResource(version, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(version);
+				if (status == STATUS_COMMITTED) {
+					version.incrementAndGet();
+				}
+			}
+		});
+	}
+
+	private AtomicLong version(Class<?> entity) {
+		return versions.computeIfAbsent(entity, key -> new AtomicLong());
+	}
+}
@@ -0,0 +1,99 @@
+package tutorial.springboot.hateoas;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Path of a controller's method, resolved once, and then expanded cheaply for each entity.<br/>
+ * <br/>
+ * Each call to "linkTo(methodOn(EmployeeController.class).one(id))" creates a proxy of the controller, records the invocation, 
+ * looks at the method's annotations through reflection and then builds the URI. Doing it two to four times for each entity of a 
+ * big collection costs a lot of CPU, while the result is always the same except for the id.<br/>
+ * <br/>
+ * So we split the work in two :<br/>
+ * - At startup, of() resolves the path of the method once, with a null argument. For example "/employees/{id}" is kept as "/employees/" 
+ * 		and "" around the id's place.<br/>
+ * - For each entity, href() only concatenates the base URI of the current request ("http://localhost:8080"), the path and the id.<br/>
+ * <br/>
+ * The base URI is read from the current request (a thread-local) by currentBaseUri(). It can be read once on the request's thread 
+ * and given to href(), so entities may be converted on other threads as well.
+ */
+public final class LinkTemplate {
+
+	private final String prefix;
+	private final String suffix;
+	private final boolean hasVariable;
+
+	private LinkTemplate(String prefix, String suffix, boolean hasVariable) {
+		this.prefix = prefix;
+		this.suffix = suffix;
+		this.hasVariable = hasVariable;
+	}
+
+	/**
+	 * Resolve the path of a controller's method. Give it the result of "methodOn(...)" called with null arguments, for example 
+	 * "LinkTemplate.of(methodOn(EmployeeController.class).one(null))".<br/>
+	 * Only one path variable is supported. Optional request parameters are left out, as "Link.expand()" would do.
+	 */
+	public static LinkTemplate of(Object invocationValue) {
+		// Outside of a request (at startup), Spring HATEOAS builds relative links such as "/employees/{id}{?after,size}".
+		// Inside of a request (for a lazily created bean), they start with the request's base URI, that we remove.
+		String href = linkTo(invocationValue).withSelfRel().getHref();
+		String baseUri = currentBaseUri();
+		if (!baseUri.isEmpty() && href.startsWith(baseUri)) {
+			href = href.substring(baseUri.length());
+		}
+
+		int query = indexOfRequestParameters(href);
+		String path = (query < 0) ? href : href.substring(0, query);
+
+		int start = path.indexOf('{');
+		if (start < 0) {
+			return new LinkTemplate(path, "", false);
+		}
+
+		int end = path.indexOf('}', start);
+		if (path.indexOf('{', end) >= 0) {
+			throw new IllegalArgumentException("Only one path variable is supported, but found " + path);
+		}
+
+		return new LinkTemplate(path.substring(0, start), path.substring(end + 1), true);
+	}
+
+	private static int indexOfRequestParameters(String href) {
+		int optional = href.indexOf("{?");
+		return (optional < 0) ? href.indexOf("{&") : optional;
+	}
+
+	/**
+	 * Base URI of the current request, as used by Spring HATEOAS (for example "http://localhost:8080"). Empty outside of a request.
+	 */
+	public static String currentBaseUri() {
+		if (RequestContextHolder.getRequestAttributes() == null) {
+			return "";
+		}
+		return ServletUriComponentsBuilder.fromCurrentServletMapping().toUriString();
+	}
+
+	/**
+	 * Build the href of a link for a path without variable.
+	 */
+	public String href(String baseUri) {
+		if (hasVariable) {
+			throw new IllegalStateException("A value is required for " + prefix + "{}" + suffix);
+		}
+		return baseUri + prefix;
+	}
+
+	/**
+	 * Build the href of a link, replacing the path variable by the provided value.
+	 */
+	public String href(String baseUri, Object value) {
+		if (!hasVariable) {
+			throw new IllegalStateException(prefix + " does not contain any variable");
+		}
+		return baseUri + prefix + value + suffix;
+	}
+}
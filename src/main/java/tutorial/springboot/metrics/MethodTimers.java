@@ -0,0 +1,162 @@
+package tutorial.springboot.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Measure where requests spend their time, with Micrometer's Timers (published by the actuator, see "/actuator/metrics") :<br/>
+ * - "tutorial.controller" : each method of EmployeeController, OrderController, SqliteController and RestfulController, tagged
+ * 		with "controller", "method" and "exception" (the simple name of the exception thrown, or "none"). Methods returning a
+ * 		CompletableFuture ("/async/...") are timed until the future completes.<br/>
+ * - "tutorial.repository" : each call to a Spring Data repository, tagged with "repository", "method", "exception" and "uri".<br/>
+ * - "tutorial.assembler" : each toModel() of the model assemblers, tagged with "assembler", "method" and "uri".<br/>
+ * - "tutorial.serialization" : JSON serialization of responses (see TimedMessageConverters), tagged with "type" and "uri".<br/>
+ * <br/>
+ * The "uri" tag is the path pattern of the request's endpoint (e.g. "/employees/{id}"), or "none" outside of a request : it breaks
+ * down the time spent in repositories, assemblers and serialization by endpoint, as "http.server.requests" does for whole requests.
+ * Timers publish their percentiles and histograms (see "management.metrics.distribution.*" properties), for example :<br/>
+ * /actuator/metrics/tutorial.repository.percentile?tag=phi:0.99&tag=uri:/employees/{id}<br/>
+ * <br/>
+ * Like JdbcBulkhead, this is an @Aspect, whose @Around methods run instead of the methods chosen by their pointcut. Controllers are
+ * proxied by Spring for that : their package-private methods are intercepted too. @Order(HIGHEST_PRECEDENCE) runs this aspect
+ * before the other ones : the time of a repository call includes the cache (see EntityCacheConfig) and the wait of JdbcBulkhead,
+ * as its caller sees it. A repository returning a Stream is timed while the Stream is opened, not while it is read.<br/>
+ * <br/>
+ * Timers are registered once for each set of tags, then kept in a map : the hot path only builds the map's key.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MethodTimers {
+
+	private final MeterRegistry meterRegistry;
+	private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+	private final Map<Class<?>, String> repositories = new ConcurrentHashMap<>();
+
+	MethodTimers(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("execution(* tutorial.springboot.rest_application.EmployeeController.*(..))"
+			+ " || execution(* tutorial.springboot.rest_application.OrderController.*(..))"
+			+ " || execution(* tutorial.springboot.sqlite.SqliteController.*(..))"
+			+ " || execution(* tutorial.springboot.restful.RestfulController.*(..))")
+	public Object timeController(ProceedingJoinPoint call) throws Throwable {
+		String controller = call.getSignature().getDeclaringType().getSimpleName();
+		String method = call.getSignature().getName();
+		long start = System.nanoTime();
+		Object result;
+		try {
+			result = call.proceed();
+		} catch (Throwable e) {
+			record(start, "tutorial.controller", "controller", controller, "method", method, "exception", exception(e));
+			throw e;
+		}
+
+		if (result instanceof CompletionStage) {
+			((CompletionStage<?>) result).whenComplete((value, e) ->
+					record(start, "tutorial.controller", "controller", controller, "method", method, "exception", exception(e)));
+		} else {
+			record(start, "tutorial.controller", "controller", controller, "method", method, "exception", "none");
+		}
+		return result;
+	}
+
+	@Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+	public Object timeRepository(ProceedingJoinPoint call) throws Throwable {
+		long start = System.nanoTime();
+		String exception = "none";
+		try {
+			return call.proceed();
+		} catch (Throwable e) {
+			exception = exception(e);
+			throw e;
+		} finally {
+			record(start, "tutorial.repository", "repository", repository(call.getThis()), "method", call.getSignature().getName(),
+					"exception", exception, "uri", uri());
+		}
+	}
+
+	@Around("execution(* org.springframework.hateoas.server.RepresentationModelAssembler+.toModel*(..))")
+	public Object timeAssembler(ProceedingJoinPoint call) throws Throwable {
+		long start = System.nanoTime();
+		try {
+			return call.proceed();
+		} finally {
+			record(start, "tutorial.assembler", "assembler", call.getSignature().getDeclaringType().getSimpleName(), "method",
+					call.getSignature().getName(), "uri", uri());
+		}
+	}
+
+	/**
+	 * Record the time elapsed since start (from System.nanoTime()) into the Timer of this name and tags (as name / value pairs).
+	 */
+	void record(long start, String name, String... tags) {
+		long duration = System.nanoTime() - start;
+		List<String> key = new ArrayList<>(tags.length + 1);
+		key.add(name);
+		key.addAll(Arrays.asList(tags));
+		timers.computeIfAbsent(key, k -> Timer.builder(name).tags(tags).register(meterRegistry))
+				.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Path pattern of the endpoint handling the current request, or "none". The attribute is read on the servlet request itself, which
+	 * also works on the threads of DatabaseExecutor (that copy the request's attributes).
+	 */
+	static String uri() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		return attributes instanceof ServletRequestAttributes ? uri(((ServletRequestAttributes) attributes).getRequest()) : "none";
+	}
+
+	/**
+	 * Path pattern of the endpoint handling this request, or "none" if it is not known (yet).
+	 */
+	static String uri(HttpServletRequest request) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return pattern == null ? "none" : pattern.toString();
+	}
+
+	/**
+	 * Name of the application's interface of a repository proxy (e.g. "EmployeeRepository"), found once per proxy class.
+	 */
+	private String repository(Object proxy) {
+		return repositories.computeIfAbsent(proxy.getClass(), type -> Arrays.stream(AopProxyUtils.proxiedUserInterfaces(proxy))
+				.filter(Repository.class::isAssignableFrom)
+				.filter(repository -> !repository.getName().startsWith("org.springframework."))
+				.findFirst()
+				.map(Class::getSimpleName)
+				.orElse(type.getSimpleName()));
+	}
+
+	private static String exception(Throwable e) {
+		if (e instanceof CompletionException && e.getCause() != null) {
+			e = e.getCause();
+		}
+		return e == null ? "none" : e.getClass().getSimpleName();
+	}
+}
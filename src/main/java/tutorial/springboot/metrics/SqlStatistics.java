@@ -0,0 +1,225 @@
+package tutorial.springboot.metrics;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Statistics of the SQL statements sent to the data base, shown by the "sql" actuator endpoint (see SqlStatisticsEndpoint) :<br/>
+ * - For each statement and endpoint sending it : the number of executions, the rows read or modified, the total, median, 99th
+ * 		percentile and maximum durations (see StatementStatistics). The statements of Hibernate, of JdbcTemplate and of the
+ * 		JPA repositories' queries are all there, as they go through the same DataSource (see SqlStatisticsDataSource).<br/>
+ * - Statements longer than "sql-statistics.slow-threshold" are logged with their endpoint.<br/>
+ * - Requests sending more than "sql-statistics.max-statements-per-request" statements are logged, and the last ones are kept with
+ * 		the number of executions of each of their statements : a statement sent once per entity (the "N+1 selects" problem) shows
+ * 		up there. Extra statements of a single call show up in the statistics of its endpoint : for example, the SELECT that
+ * 		"DELETE /orders/{id}/cancel" sends after its UPDATE when the order can not be cancelled, to tell its status.<br/>
+ * <br/>
+ * The statements of a request are counted in an attribute of the servlet request, which is also seen by the threads of
+ * DatabaseExecutor, and checked by afterCompletion() once the response is complete (after the asynchronous part of "/async/..."
+ * requests). As a HandlerInterceptor, it is registered by SqlStatisticsConfig. Statements outside of HTTP requests (startup, bulk
+ * loads...), or sent before the request's endpoint is known (by servlet filters), have the "none" endpoint. BulkLoader writes
+ * through the writer pool directly, so its statements are not measured.
+ */
+@Component
+@EnableConfigurationProperties(SqlStatisticsProperties.class)
+public class SqlStatistics implements HandlerInterceptor {
+
+	private static final Logger log = LoggerFactory.getLogger(SqlStatistics.class);
+	private static final String REQUEST_STATEMENTS = SqlStatistics.class.getName() + ".STATEMENTS";
+	private static final String OTHER_STATEMENTS = "(other statements)";
+
+	private final SqlStatisticsProperties properties;
+	private final long slowThresholdNanos;
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Map<List<String>, StatementStatistics> statements = new ConcurrentHashMap<>();
+	private final Deque<FlaggedRequest> flaggedRequests = new ArrayDeque<>();
+
+	SqlStatistics(SqlStatisticsProperties properties) {
+		this.properties = properties;
+		this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+	}
+
+	/**
+	 * The DataSource measuring the statements sent through the given one, or the given one if "sql-statistics.enabled" is false.
+	 */
+	public DataSource wrap(DataSource dataSource) {
+		return properties.isEnabled() ? new SqlStatisticsDataSource(dataSource, this) : dataSource;
+	}
+
+	/**
+	 * Record an execution of a statement, and return its statistics, to which its rows are added afterwards.
+	 */
+	StatementStatistics record(String sql, long nanos) {
+		HttpServletRequest request = currentRequest();
+		String endpoint = endpoint(request);
+
+		List<String> key = List.of(sql, endpoint);
+		StatementStatistics statistics = statements.get(key);
+		if (statistics == null) {
+			if (statements.size() >= properties.getMaxStatements()) {
+				key = List.of(OTHER_STATEMENTS, endpoint);
+			}
+			statistics = statements.computeIfAbsent(key, k -> new StatementStatistics(k.get(0), k.get(1), meterRegistry));
+		}
+		statistics.record(nanos);
+
+		if (request != null) {
+			requestStatements(request).add(sql);
+		}
+		if (nanos > slowThresholdNanos) {
+			log.warn("Slow SQL statement on {} ({} ms) : {}", endpoint, nanos / 1_000_000, sql);
+		}
+		return statistics;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		RequestStatements requestStatements = (RequestStatements) request.getAttribute(REQUEST_STATEMENTS);
+		if (requestStatements == null || requestStatements.total() <= properties.getMaxStatementsPerRequest()) {
+			return;
+		}
+
+		FlaggedRequest flagged = new FlaggedRequest(endpoint(request), requestStatements);
+		log.warn("{} sent {} SQL statements, more than {} : {}", flagged.getEndpoint(), flagged.getStatements(),
+				properties.getMaxStatementsPerRequest(), flagged.getExecutions());
+		synchronized (flaggedRequests) {
+			flaggedRequests.addFirst(flagged);
+			while (flaggedRequests.size() > properties.getFlaggedRequests()) {
+				flaggedRequests.removeLast();
+			}
+		}
+	}
+
+	/**
+	 * Statistics of each statement, the longest in total first.
+	 */
+	public List<StatementStatistics> statements() {
+		List<StatementStatistics> list = new ArrayList<>(statements.values());
+		list.sort((a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+		return list;
+	}
+
+	/**
+	 * The last requests sending more than "sql-statistics.max-statements-per-request" statements, the latest first.
+	 */
+	public List<FlaggedRequest> flaggedRequests() {
+		synchronized (flaggedRequests) {
+			return new ArrayList<>(flaggedRequests);
+		}
+	}
+
+	public SqlStatisticsProperties getProperties() {
+		return properties;
+	}
+
+	/**
+	 * HTTP method and path pattern of the request (e.g. "DELETE /orders/{id}/cancel"), or "none" before its endpoint is known.
+	 */
+	private static String endpoint(HttpServletRequest request) {
+		String uri = request == null ? "none" : MethodTimers.uri(request);
+		return uri.equals("none") ? uri : request.getMethod() + " " + uri;
+	}
+
+	private static HttpServletRequest currentRequest() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		return attributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes) attributes).getRequest() : null;
+	}
+
+	/**
+	 * The statements of a request, created by its first one. A request runs on one thread at a time (its own, then one of
+	 * DatabaseExecutor), but the methods are synchronized for the memory to be seen from one thread to the next.
+	 */
+	private static RequestStatements requestStatements(HttpServletRequest request) {
+		RequestStatements statements = (RequestStatements) request.getAttribute(REQUEST_STATEMENTS);
+		if (statements == null) {
+			statements = new RequestStatements();
+			request.setAttribute(REQUEST_STATEMENTS, statements);
+		}
+		return statements;
+	}
+
+	private static class RequestStatements {
+
+		private final Map<String, Integer> executions = new HashMap<>();
+		private int total;
+
+		synchronized void add(String sql) {
+			total++;
+			executions.merge(sql, 1, Integer::sum);
+		}
+
+		synchronized int total() {
+			return total;
+		}
+
+		/**
+		 * Number of executions of each statement, the most executed first.
+		 */
+		synchronized Map<String, Integer> executions() {
+			Map<String, Integer> sorted = new LinkedHashMap<>();
+			executions.entrySet().stream()
+					.sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+					.forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		}
+	}
+
+	/**
+	 * A request that sent too many statements.
+	 */
+	public static class FlaggedRequest {
+
+		private final Instant time = Instant.now();
+		private final String endpoint;
+		private final int statements;
+		private final Map<String, Integer> executions;
+
+		FlaggedRequest(String endpoint, RequestStatements requestStatements) {
+			this.endpoint = endpoint;
+			this.statements = requestStatements.total();
+			this.executions = requestStatements.executions();
+		}
+
+		public Instant getTime() {
+			return time;
+		}
+
+		public String getEndpoint() {
+			return endpoint;
+		}
+
+		public int getStatements() {
+			return statements;
+		}
+
+		/**
+		 * Number of executions of each statement, the most executed first.
+		 */
+		public Map<String, Integer> getExecutions() {
+			return executions;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package tutorial.springboot.metrics;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Apply SqlStatistics to all the requests handled by Spring MVC, so that those sending too many statements are flagged.
+ */
+@Configuration
+public class SqlStatisticsConfig implements WebMvcConfigurer {
+
+	private final SqlStatistics sqlStatistics;
+
+	SqlStatisticsConfig(SqlStatistics sqlStatistics) {
+		this.sqlStatistics = sqlStatistics;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(sqlStatistics);
+	}
+}
@@ -0,0 +1,150 @@
+package tutorial.springboot.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * A DataSource measuring the SQL statements sent through another one, for SqlStatistics : a "JDBC proxy".<br/>
+ * <br/>
+ * The connections it gives are java.lang.reflect.Proxy objects : each call to a method of their interface goes to an
+ * InvocationHandler, which calls the real connection. The statements they create are wrapped the same way :<br/>
+ * - prepareStatement(sql) and prepareCall(sql) keep the SQL of the statement.<br/>
+ * - Each execute...() method is timed and recorded with this SQL (or the one given to execute(sql) for plain statements). The
+ * 		rows modified by an INSERT, UPDATE or DELETE are their update count.<br/>
+ * - Result sets are wrapped too, and count the rows read by next().<br/>
+ * <br/>
+ * Everything else goes to the real objects as is. Proxies are only equal to themselves, so that Hibernate, which keeps its
+ * statements in hash maps, finds them again.
+ */
+class SqlStatisticsDataSource extends DelegatingDataSource {
+
+	private static final String BATCH = "(batch)";
+
+	private final SqlStatistics statistics;
+
+	SqlStatisticsDataSource(DataSource dataSource, SqlStatistics statistics) {
+		super(dataSource);
+		this.statistics = statistics;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return connection(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return connection(super.getConnection(username, password));
+	}
+
+	private Connection connection(Connection connection) {
+		return proxy(Connection.class, connection, (method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (result instanceof Statement) {
+				return statement((Statement) result, method.getName().startsWith("prepare") ? (String) args[0] : null);
+			}
+			return result;
+		});
+	}
+
+	private Statement statement(Statement statement, String preparedSql) {
+		Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+				: statement instanceof PreparedStatement ? PreparedStatement.class
+				: Statement.class;
+		StatementStatistics[] last = new StatementStatistics[1];
+
+		return proxy(type, statement, (method, args) -> {
+			String name = method.getName();
+			if (name.equals("getResultSet")) {
+				ResultSet resultSet = (ResultSet) invoke(statement, method, args);
+				return resultSet == null || last[0] == null ? resultSet : resultSet(resultSet, last[0]);
+			}
+			if (!name.startsWith("execute")) {
+				return invoke(statement, method, args);
+			}
+
+			String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+					: preparedSql != null ? preparedSql
+					: BATCH;
+			long start = System.nanoTime();
+			Object result;
+			try {
+				result = invoke(statement, method, args);
+			} finally {
+				last[0] = statistics.record(sql, System.nanoTime() - start);
+			}
+
+			if (result instanceof ResultSet) {
+				return resultSet((ResultSet) result, last[0]);
+			} else if (result instanceof Integer || result instanceof Long) {
+				last[0].addRows(((Number) result).longValue());
+			} else if (result instanceof int[]) {
+				for (int count : (int[]) result) {
+					last[0].addRows(Math.max(count, 0));
+				}
+			} else if (result instanceof long[]) {
+				for (long count : (long[]) result) {
+					last[0].addRows(Math.max(count, 0));
+				}
+			}
+			return result;
+		});
+	}
+
+	private static ResultSet resultSet(ResultSet resultSet, StatementStatistics statistics) {
+		return proxy(ResultSet.class, resultSet, (method, args) -> {
+			Object result = invoke(resultSet, method, args);
+			if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+				statistics.addRows(1);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * A proxy of the given interface, calling the handler for every method but equals() and hashCode().
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+		InvocationHandler invocationHandler = (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				return handler.invoke(method, args);
+			}
+		};
+		return (T) Proxy.newProxyInstance(SqlStatisticsDataSource.class.getClassLoader(), new Class<?>[] { type }, invocationHandler);
+	}
+
+	/**
+	 * Call the method on the real object, throwing its own exceptions rather than InvocationTargetException.
+	 */
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Handler {
+
+		Object invoke(Method method, Object[] args) throws Throwable;
+	}
+}
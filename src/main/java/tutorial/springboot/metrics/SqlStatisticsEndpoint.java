@@ -0,0 +1,42 @@
+package tutorial.springboot.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * The "sql" actuator endpoint : GET "/actuator/sql" shows the statistics of SqlStatistics, as JSON :<br/>
+ * - "statements" : each SQL statement with the endpoint sending it, its count, rows, total, median ("p50Millis"), 99th percentile
+ * 		("p99Millis") and maximum durations, the longest in total first.<br/>
+ * - "flaggedRequests" : the last requests that sent more than "maxStatementsPerRequest" statements, with the number of executions
+ * 		of each statement.<br/>
+ * <br/>
+ * @Endpoint declares an endpoint of the actuator, available through HTTP once its id is in
+ * "management.endpoints.web.exposure.include". A @ReadOperation method answers its GET requests, and its result is serialized into
+ * JSON by the actuator.
+ */
+@Component
+@Endpoint(id = "sql")
+public class SqlStatisticsEndpoint {
+
+	private final SqlStatistics sqlStatistics;
+
+	SqlStatisticsEndpoint(SqlStatistics sqlStatistics) {
+		this.sqlStatistics = sqlStatistics;
+	}
+
+	@ReadOperation
+	public Map<String, Object> statistics() {
+		SqlStatisticsProperties properties = sqlStatistics.getProperties();
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("enabled", properties.isEnabled());
+		statistics.put("slowThreshold", properties.getSlowThreshold().toString());
+		statistics.put("maxStatementsPerRequest", properties.getMaxStatementsPerRequest());
+		statistics.put("statements", sqlStatistics.statements());
+		statistics.put("flaggedRequests", sqlStatistics.flaggedRequests());
+		return statistics;
+	}
+}
@@ -0,0 +1,78 @@
+package tutorial.springboot.metrics;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of SqlStatistics, read from "sql-statistics.*" properties. Watch SQLiteProperties for more details on
+ * @ConfigurationProperties.
+ */
+@ConfigurationProperties("sql-statistics")
+public class SqlStatisticsProperties {
+
+	/**
+	 * Whether SQL statements are measured at all. Without it, the DataSource is not wrapped.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Statements running longer than this are logged as slow.
+	 */
+	private Duration slowThreshold = Duration.ofMillis(100);
+
+	/**
+	 * Requests sending more statements than this are logged and listed by the "sql" endpoint.
+	 */
+	private int maxStatementsPerRequest = 10;
+
+	/**
+	 * Maximum number of statements (by SQL and endpoint) measured separately. Further ones are measured together.
+	 */
+	private int maxStatements = 1000;
+
+	/**
+	 * Number of the last requests sending too many statements kept for the "sql" endpoint.
+	 */
+	private int flaggedRequests = 100;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getSlowThreshold() {
+		return slowThreshold;
+	}
+
+	public void setSlowThreshold(Duration slowThreshold) {
+		this.slowThreshold = slowThreshold;
+	}
+
+	public int getMaxStatementsPerRequest() {
+		return maxStatementsPerRequest;
+	}
+
+	public void setMaxStatementsPerRequest(int maxStatementsPerRequest) {
+		this.maxStatementsPerRequest = maxStatementsPerRequest;
+	}
+
+	public int getMaxStatements() {
+		return maxStatements;
+	}
+
+	public void setMaxStatements(int maxStatements) {
+		this.maxStatements = maxStatements;
+	}
+
+	public int getFlaggedRequests() {
+		return flaggedRequests;
+	}
+
+	public void setFlaggedRequests(int flaggedRequests) {
+		this.flaggedRequests = flaggedRequests;
+	}
+}
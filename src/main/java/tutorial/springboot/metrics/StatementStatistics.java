@@ -0,0 +1,88 @@
+package tutorial.springboot.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Executions of one SQL statement from one endpoint (see SqlStatistics). Durations are kept by a Micrometer Timer of a registry of
+ * SqlStatistics' own, so that SQL texts are not published as tags of the actuator's metrics. Like every Timer's, the percentiles
+ * are the ones of the last few minutes, while the count, rows and total time add up since startup.
+ */
+public class StatementStatistics {
+
+	private final String sql;
+	private final String endpoint;
+	private final Timer timer;
+	private final LongAdder rows = new LongAdder();
+
+	StatementStatistics(String sql, String endpoint, MeterRegistry meterRegistry) {
+		this.sql = sql;
+		this.endpoint = endpoint;
+		this.timer = Timer.builder("sql.statement")
+				.tag("sql", sql)
+				.tag("endpoint", endpoint)
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry);
+	}
+
+	void record(long nanos) {
+		timer.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Add rows read from a result set, or modified by an INSERT, UPDATE or DELETE.
+	 */
+	void addRows(long count) {
+		rows.add(count);
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * HTTP method and path pattern of the request sending this statement (e.g. "DELETE /employees/{id}"), or "none".
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public long getCount() {
+		return timer.count();
+	}
+
+	public long getRows() {
+		return rows.sum();
+	}
+
+	public double getTotalMillis() {
+		return timer.totalTime(TimeUnit.MILLISECONDS);
+	}
+
+	public double getMaxMillis() {
+		return timer.max(TimeUnit.MILLISECONDS);
+	}
+
+	public double getP50Millis() {
+		return percentile(0.5);
+	}
+
+	public double getP99Millis() {
+		return percentile(0.99);
+	}
+
+	private double percentile(double percentile) {
+		HistogramSnapshot snapshot = timer.takeSnapshot();
+		for (ValueAtPercentile value : snapshot.percentileValues()) {
+			if (value.percentile() == percentile) {
+				return value.value(TimeUnit.MILLISECONDS);
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,144 @@
+package tutorial.springboot.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Time the JSON serialization of responses, as the "tutorial.serialization" metric (see MethodTimers), tagged with the "type" of
+ * the serialized object (e.g. "EntityModel", "CollectionModel") and the "uri" of the endpoint.<br/>
+ * <br/>
+ * Spring MVC writes the object returned by a controller with the first HttpMessageConverter accepting it and the requested media
+ * type : Jackson's converters for JSON, including the one of Spring HATEOAS for "application/hal+json". A BeanPostProcessor sees
+ * each bean when it is created : here, the converters of Spring MVC's RequestMappingHandlerAdapter are replaced, before it uses
+ * them, by TimedConverters which time the write() of Jackson's converters and delegate everything else to them.<br/>
+ * <br/>
+ * The MeterRegistry is only looked up when a Timer is first registered : asking for it while post-processors are created would
+ * create it before Spring Boot's own post-processor configures it (with the percentiles of "management.metrics.distribution.*").
+ * <br/>
+ * The time includes writing the response's body : with a slow client, it also measures the network.
+ */
+@Component
+public class TimedMessageConverters implements BeanPostProcessor {
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+	private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+
+	TimedMessageConverters(ObjectProvider<MeterRegistry> meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		if (bean instanceof RequestMappingHandlerAdapter) {
+			RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) bean;
+			adapter.setMessageConverters(adapter.getMessageConverters().stream().map(this::timed).collect(Collectors.toList()));
+		}
+		return bean;
+	}
+
+	@SuppressWarnings("unchecked")
+	private HttpMessageConverter<?> timed(HttpMessageConverter<?> converter) {
+		return converter instanceof AbstractJackson2HttpMessageConverter
+				? new TimedConverter((GenericHttpMessageConverter<Object>) converter)
+				: converter;
+	}
+
+	private Timer timer(Object value) {
+		String type = value == null ? "null" : value.getClass().getSimpleName();
+		return timers.computeIfAbsent(List.of(type, MethodTimers.uri()), key -> Timer.builder("tutorial.serialization")
+				.tag("type", key.get(0))
+				.tag("uri", key.get(1))
+				.register(meterRegistry.getObject()));
+	}
+
+	/**
+	 * Converter timing the write() of another one.
+	 */
+	private class TimedConverter implements GenericHttpMessageConverter<Object> {
+
+		private final GenericHttpMessageConverter<Object> converter;
+
+		TimedConverter(GenericHttpMessageConverter<Object> converter) {
+			this.converter = converter;
+		}
+
+		@Override
+		public void write(Object value, Type type, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+			long start = System.nanoTime();
+			try {
+				converter.write(value, type, contentType, outputMessage);
+			} finally {
+				timer(value).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		@Override
+		public void write(Object value, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+			long start = System.nanoTime();
+			try {
+				converter.write(value, contentType, outputMessage);
+			} finally {
+				timer(value).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		@Override
+		public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+			return converter.canRead(type, contextClass, mediaType);
+		}
+
+		@Override
+		public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+			return converter.read(type, contextClass, inputMessage);
+		}
+
+		@Override
+		public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+			return converter.canWrite(type, clazz, mediaType);
+		}
+
+		@Override
+		public boolean canRead(Class<?> clazz, MediaType mediaType) {
+			return converter.canRead(clazz, mediaType);
+		}
+
+		@Override
+		public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+			return converter.canWrite(clazz, mediaType);
+		}
+
+		@Override
+		public List<MediaType> getSupportedMediaTypes() {
+			return converter.getSupportedMediaTypes();
+		}
+
+		@Override
+		public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+			return converter.getSupportedMediaTypes(clazz);
+		}
+
+		@Override
+		public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+			return converter.read(clazz, inputMessage);
+		}
+	}
+}
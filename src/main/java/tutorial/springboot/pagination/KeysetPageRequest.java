@@ -0,0 +1,100 @@
+package tutorial.springboot.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+
+/**
+ * Describe a page requested with "keyset" (or "cursor") pagination, as "?after=<id>&size=N".<br/>
+ * <br/>
+ * Offset pagination ("limit 20 offset 400000") asks the data base to walk through and throw away every row before the requested 
+ * one, so deep pages become slower and slower. With keyset pagination, we instead remember the id of the last row sent to the 
+ * client, and ask for the rows that come after it : "where id > ? order by id limit ?". Because "id" is the primary key, the data 
+ * base jumps directly to the right place in its index, and every page costs the same, whatever its depth.<br/>
+ * <br/>
+ * The requested size is always capped, so a single call can never ask for the whole table.
+ */
+public final class KeysetPageRequest {
+
+	/**
+	 * Page size used when the client does not provide one.
+	 */
+	public static final int DEFAULT_SIZE = 20;
+
+	/**
+	 * Biggest page size a client may ask for. Larger values are silently lowered to it.
+	 */
+	public static final int MAX_SIZE = 100;
+
+	private final long after;
+	private final int size;
+
+	private KeysetPageRequest(long after, int size) {
+		this.after = after;
+		this.size = size;
+	}
+
+	/**
+	 * Build a page request from raw (and possibly absent) request parameters. A missing "after" means "first page", and "size" 
+	 * is kept between 1 and MAX_SIZE.
+	 */
+	public static KeysetPageRequest of(Long after, Integer size) {
+		int pageSize = (size == null) ? DEFAULT_SIZE : Math.max(1, Math.min(size, MAX_SIZE));
+		return new KeysetPageRequest(after == null ? Long.MIN_VALUE : after, pageSize);
+	}
+
+	/**
+	 * Id after which rows must be read (exclusive).
+	 */
+	public long getAfter() {
+		return after;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Pageable to give to repositories' "findByIdGreaterThanOrderByIdAsc" methods. We always ask for one more row than the page 
+	 * size : if this extra row comes back, a next page exists. This avoids running a costly "count(*)" on the whole table, as 
+	 * Spring Data would do if repositories returned a Page.
+	 */
+	public Pageable toPageable() {
+		return PageRequest.of(0, size + 1);
+	}
+
+	/**
+	 * Build the HAL page from the rows read with toPageable(). A "next" link pointing after the last returned row is added only if 
+	 * another page exists.
+	 * 
+	 * @param rows Rows read from the repository (possibly containing the extra row).
+	 * @param toModel Convert each row into an EntityModel (typically a model assembler).
+	 * @param idOf Give the id of a row, used as cursor of the next page.
+	 * @param self Self link of the page.
+	 * @param next Build the link to the page starting after the given id. It may run on another thread than the request's (see
+	 * 		EmployeeController.allAsync()) : expand a link template resolved beforehand, rather than calling "linkTo(methodOn(...))".
+	 */
+	public <T> CollectionModel<EntityModel<T>> toCollectionModel(List<T> rows, Function<T, EntityModel<T>> toModel,
+			Function<T, Long> idOf, Link self, Function<Long, Link> next) {
+		boolean hasNext = rows.size() > size;
+		List<T> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+		List<EntityModel<T>> models = pageRows.stream()
+												.map(toModel)
+												.collect(Collectors.toList());
+
+		CollectionModel<EntityModel<T>> page = CollectionModel.of(models, self);
+		if (hasNext) {
+			page.add(next.apply(idOf.apply(pageRows.get(pageRows.size() - 1))).withRel(IanaLinkRelations.NEXT));
+		}
+
+		return page;
+	}
+}
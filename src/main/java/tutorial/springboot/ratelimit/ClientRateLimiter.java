@@ -0,0 +1,107 @@
+package tutorial.springboot.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limit the write requests (POST, PUT, DELETE...) of each client of the JSON API, so that a single client can not keep SQLite's
+ * only writer busy for everyone. Read requests are not limited.<br/>
+ * <br/>
+ * Each client has a TokenBucket of "rate-limit.capacity" requests, refilled at "rate-limit.permits-per-second". A client is the
+ * user of the bearer token (see ApiTokens), or the IP address for requests without user. A request finding its bucket empty fails
+ * with a RateLimitExceededException (429 status, with a "Retry-After" header).<br/>
+ * <br/>
+ * Buckets are kept in a Caffeine cache, so that their number stays bounded whatever the number of clients :<br/>
+ * - A bucket is dropped once its client was idle long enough for it to be full again : a new bucket would be the same.<br/>
+ * - At most "rate-limit.max-clients" buckets are kept. Reading a bucket does not take any lock.<br/>
+ * <br/>
+ * Metrics : "rate.limit.requests" counts requests, with a "result" tag ("allowed" or "throttled"). "rate.limit.throttled" counts the
+ * throttled requests of each client, with a "client" tag. As a tag value per client could make millions of metrics, only the
+ * "rate-limit.metered-clients" most often throttled clients have their counter.<br/>
+ * <br/>
+ * This is a Spring MVC HandlerInterceptor : preHandle() runs before the controller's method, after Spring Security's filters, so
+ * the user is known. RateLimitConfig chooses the paths it applies to.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class ClientRateLimiter implements HandlerInterceptor {
+
+	private final RateLimitProperties properties;
+	private final long interval;
+	private final Cache<String, TokenBucket> buckets;
+	private final Cache<String, Counter> throttledCounters;
+	private final MeterRegistry meterRegistry;
+	private final Counter allowed;
+	private final Counter throttled;
+
+	ClientRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+		if (properties.getCapacity() < 1 || properties.getPermitsPerSecond() <= 0) {
+			throw new IllegalArgumentException("rate-limit.capacity and rate-limit.permits-per-second must be positive");
+		}
+		this.properties = properties;
+		this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getPermitsPerSecond());
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(properties.getMaxClients())
+				.expireAfterAccess(Duration.ofNanos(interval * properties.getCapacity()))
+				.build();
+		this.throttledCounters = Caffeine.newBuilder()
+				.maximumSize(properties.getMeteredClients())
+				.expireAfterAccess(properties.getMeteredClientExpiry())
+				.<String, Counter>removalListener((client, counter, cause) -> meterRegistry.remove(counter))
+				.build();
+		this.meterRegistry = meterRegistry;
+		this.allowed = meterRegistry.counter("rate.limit.requests", "result", "allowed");
+		this.throttled = meterRegistry.counter("rate.limit.requests", "result", "throttled");
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!properties.isEnabled() || isRead(request) || request.getDispatcherType() == DispatcherType.ASYNC) {
+			// The asynchronous endpoints' requests are dispatched again when their result is ready : they were counted once.
+			return true;
+		}
+
+		String client = client(request);
+		long now = System.nanoTime();
+		long wait = buckets.get(client, key -> new TokenBucket(properties.getCapacity(), interval, now)).tryAcquire(now);
+		if (wait == 0) {
+			allowed.increment();
+			return true;
+		}
+
+		throttled.increment();
+		throttledCounters.get(client, key -> meterRegistry.counter("rate.limit.throttled", "client", key)).increment();
+		throw new RateLimitExceededException(client, Duration.ofNanos(wait));
+	}
+
+	private static boolean isRead(HttpServletRequest request) {
+		String method = request.getMethod();
+		return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+	}
+
+	private static String client(HttpServletRequest request) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+			return "user:" + authentication.getName();
+		}
+		return "ip:" + request.getRemoteAddr();
+	}
+}
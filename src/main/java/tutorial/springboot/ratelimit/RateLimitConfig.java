@@ -0,0 +1,24 @@
+package tutorial.springboot.ratelimit;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Apply ClientRateLimiter to the paths of the JSON API (the ones of WebSecurityConfig's API chain).
+ */
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+	private final ClientRateLimiter clientRateLimiter;
+
+	RateLimitConfig(ClientRateLimiter clientRateLimiter) {
+		this.clientRateLimiter = clientRateLimiter;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(clientRateLimiter)
+				.addPathPatterns("/employees/**", "/orders/**", "/sqlite_person*/**", "/async/**");
+	}
+}
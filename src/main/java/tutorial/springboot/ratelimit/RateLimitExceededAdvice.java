@@ -0,0 +1,26 @@
+package tutorial.springboot.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Return a 429 (Too Many Requests) status with the exception's message when ClientRateLimiter refused a request. The
+ * "Retry-After" header tells the client how many seconds to wait (rounded up). Watch EmployeeNotFoundAdvice for more details.
+ */
+@ControllerAdvice
+public class RateLimitExceededAdvice {
+
+	@ExceptionHandler(RateLimitExceededException.class)
+	ResponseEntity<String> rateLimitExceededHandler(RateLimitExceededException ex) {
+		long seconds = Math.max(1, (ex.getRetryAfter().toNanos() + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+				.body(ex.getMessage());
+	}
+}
@@ -0,0 +1,24 @@
+package tutorial.springboot.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Thrown by ClientRateLimiter when a client sent too many write requests.
+ */
+@SuppressWarnings("serial")
+public class RateLimitExceededException extends RuntimeException {
+
+	private final Duration retryAfter;
+
+	RateLimitExceededException(String client, Duration retryAfter) {
+		super("Too many write requests from " + client + ". Please retry later");
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * How long the client has to wait before its next write request is accepted.
+	 */
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
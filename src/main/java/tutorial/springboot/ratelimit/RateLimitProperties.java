@@ -0,0 +1,91 @@
+package tutorial.springboot.ratelimit;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of ClientRateLimiter, read from "rate-limit.*" properties. Watch SQLiteProperties for more details on
+ * @ConfigurationProperties.
+ */
+@ConfigurationProperties("rate-limit")
+public class RateLimitProperties {
+
+	/**
+	 * Whether write requests of the JSON API are limited at all.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Size of each client's bucket : how many write requests a client may send at once, after being idle.
+	 */
+	private int capacity = 50;
+
+	/**
+	 * How many write requests per second each client may send in the long run : the rate at which its bucket is refilled.
+	 */
+	private double permitsPerSecond = 20;
+
+	/**
+	 * Maximum number of buckets kept in memory. Buckets of idle clients are dropped anyway once they are full again.
+	 */
+	private long maxClients = 100_000;
+
+	/**
+	 * Maximum number of clients having their own "rate.limit.throttled" counter : the ones throttled most often are kept.
+	 */
+	private long meteredClients = 100;
+
+	/**
+	 * How long the counter of a client that is no longer throttled is kept.
+	 */
+	private Duration meteredClientExpiry = Duration.ofHours(1);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+
+	public void setPermitsPerSecond(double permitsPerSecond) {
+		this.permitsPerSecond = permitsPerSecond;
+	}
+
+	public long getMaxClients() {
+		return maxClients;
+	}
+
+	public void setMaxClients(long maxClients) {
+		this.maxClients = maxClients;
+	}
+
+	public long getMeteredClients() {
+		return meteredClients;
+	}
+
+	public void setMeteredClients(long meteredClients) {
+		this.meteredClients = meteredClients;
+	}
+
+	public Duration getMeteredClientExpiry() {
+		return meteredClientExpiry;
+	}
+
+	public void setMeteredClientExpiry(Duration meteredClientExpiry) {
+		this.meteredClientExpiry = meteredClientExpiry;
+	}
+}
@@ -0,0 +1,43 @@
+package tutorial.springboot.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket of "capacity" tokens, refilled by one token every "interval" nanoseconds. Each request takes a token, and is
+ * refused when the bucket is empty.<br/>
+ * <br/>
+ * Instead of a number of tokens and the time of the last refill, that would have to be updated together under a lock, the bucket
+ * is a single number : the time at which it will be full again ("theoretical arrival time" of the Generic Cell Rate Algorithm,
+ * that behaves exactly as a token bucket). Taking a token pushes this time one interval further, with a compareAndSet() retried
+ * if another thread changed it meanwhile : no thread ever waits for another one.
+ */
+final class TokenBucket {
+
+	private final long interval;
+	/** How far in the future the "full" time may be while a token is left : (capacity - 1) intervals. */
+	private final long tolerance;
+	private final AtomicLong fullAt;
+
+	TokenBucket(int capacity, long interval, long now) {
+		this.interval = interval;
+		this.tolerance = (capacity - 1) * interval;
+		this.fullAt = new AtomicLong(now);
+	}
+
+	/**
+	 * Take a token. Return 0 if it was taken, otherwise the number of nanoseconds before a token is available.
+	 */
+	long tryAcquire(long now) {
+		while (true) {
+			long current = fullAt.get();
+			long start = Math.max(current, now);
+			long wait = start - tolerance - now;
+			if (wait > 0) {
+				return wait;
+			}
+			if (fullAt.compareAndSet(current, start + interval)) {
+				return 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package tutorial.springboot.rest_application;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Return a 409 (Conflict) status when an entity could not be saved because another request modified it since it was read (see
+ * @Version in Order and Employee). Spring translates Hibernate's OptimisticLockException into an
+ * ObjectOptimisticLockingFailureException.<br/>
+ * The client may read the entity again, and retry its modification if it still makes sense. Like every @ControllerAdvice without
+ * attributes, it applies to all controllers. Watch EmployeeNotFoundAdvice for more details on advices.
+ */
+@ControllerAdvice
+public class ConcurrentModificationAdvice {
+
+	@ResponseBody
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	String concurrentModificationHandler(ObjectOptimisticLockingFailureException ex) {
+		String className = ex.getPersistentClassName();
+		String entity = (className == null) ? "Entity" : className.substring(className.lastIndexOf('.') + 1);
+		return entity + " " + ex.getIdentifier() + " was modified by another request, read it again before modifying it";
+	}
+}
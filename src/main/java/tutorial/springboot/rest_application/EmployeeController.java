@@ -2,12 +2,23 @@ package tutorial.springboot.rest_application;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,7 +26,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import tutorial.springboot.batch.BatchInserter;
+import tutorial.springboot.batch.BatchResult;
+import tutorial.springboot.etag.ETags;
+import tutorial.springboot.etag.TableVersions;
+import tutorial.springboot.hateoas.LinkTemplate;
+import tutorial.springboot.pagination.KeysetPageRequest;
+import tutorial.springboot.streaming.NdjsonStreamer;
+import tutorial.springboot.threads.DatabaseExecutor;
 
 /**
  * Each new concept in this controller (compared to tutorials seen previously in classes from other packages) is 
@@ -24,10 +46,10 @@ import org.springframework.web.bind.annotation.RestController;
  * In this controller, we want build HATEOAS resources that will allow use of links. For this :<br/>
  * - Some methods return EntityModel<Employee> instead of just Employee. EntityModel<T> is a generic container from Spring HATEOAS 
  * 		that includes not only the data but a collection of links.<br/>
- * - Calls like "linkTo(methodOn(EmployeeController.class).one(id)).withSelfRel()" asks that Spring HATEOAS build a link to 
+ * - Calls like "linkTo(methodOn(EmployeeController.class).one(id, null)).withSelfRel()" asks that Spring HATEOAS build a link to 
  * 		EmployeeController.one() method, and flag it as a self link (a self link is a link to the page on which the link appears).<br/>
- * - Calls like "linkTo(methodOn(EmployeeController.class).all()).withRel("employees")" asks Spring HATEOAS to build a link to the 
- * 		aggregate root, all(), and call it "employees".<br/>
+ * - Calls like "linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees")" asks Spring HATEOAS to build a link 
+ * 		to the aggregate root, all(), and call it "employees".<br/>
  * ==> An example of the return format of this behaviors is available in one() method's javadoc.<br/>
  * - There is also returns of CollectionModel<EntityModel<Employee>>. This is not just a "Collection of employees", but a collection of 
  * 		employee resources. Watch all() method's javadoc for a format example.<br/>
@@ -39,17 +61,30 @@ public class EmployeeController {
 
   private final EmployeeRepository repository;
   private final EmployeeModelAssembler assembler;
+  private final NdjsonStreamer streamer;
+  private final BatchInserter batchInserter;
+  private final DatabaseExecutor databaseExecutor;
+  private final TableVersions tableVersions;
 
   /**
    * Here, "assembler" will be automatically injected by Spring because EmployeeModelAssembler is @Component annotated.
    */
-  EmployeeController(EmployeeRepository repository, EmployeeModelAssembler assembler) {
+  EmployeeController(EmployeeRepository repository, EmployeeModelAssembler assembler, NdjsonStreamer streamer,
+		  BatchInserter batchInserter, DatabaseExecutor databaseExecutor, TableVersions tableVersions) {
     this.repository = repository;
     this.assembler = assembler;
+    this.streamer = streamer;
+    this.batchInserter = batchInserter;
+    this.databaseExecutor = databaseExecutor;
+    this.tableVersions = tableVersions;
   }
 
   /**
-   * Here an example of the format of what this method will return using Spring HATEOAS capabilities :
+   * Return one page of employees, using keyset pagination : "http://localhost:8080/employees?after=2&size=20" return at most 20 
+   * employees whose id is greater than 2. Without "after", the first page is returned. Watch KeysetPageRequest for more 
+   * explanations.<br/>
+   * <br/>
+   * Here an example of the format of what this method will return using Spring HATEOAS capabilities, with "size=2" :
    * 
 	    {
 		  "_embedded": {
@@ -88,21 +123,88 @@ public class EmployeeController {
 		  },
 		  "_links": {
 		    "self": {
-		      "href": "http://localhost:8080/employees"
+		      "href": "http://localhost:8080/employees?size=2"
+		    },
+		    "next": {
+		      "href": "http://localhost:8080/employees?after=2&size=2"
 		    }
 		  }
 		}
    * 
+   * The "next" link is only present if there are more employees to read.<br/>
+   * <br/>
+   * Optional request parameters are rendered as a link template ("/employees{?after,size}") by Spring HATEOAS when their value is 
+   * null. Calling expand() on such a link removes the missing ones, so the self link of the first page stays "/employees".<br/>
+   * <br/>
+   * The response has an ETag header, the stamp of the employees' table (see TableVersions). A client sending it back in an 
+   * "If-None-Match" header gets a "304 Not Modified" status without body, as long as no employee was created, modified or 
+   * deleted. Watch ETags for more explanations.<br/>
+   * A WebRequest parameter is given by Spring MVC, and ignored by Spring HATEOAS when building links.
    */
   @GetMapping("/employees")
-  CollectionModel<EntityModel<Employee>> all() {
-	  // Retrieve all employees from the repository (H2 data base table).
-	  List<EntityModel<Employee>> employees = repository.findAll()
-			  											.stream()
-													    .map(assembler::toModel)
-													    .collect(Collectors.toList());
-	
-	  return CollectionModel.of(employees, linkTo(methodOn(EmployeeController.class).all()).withSelfRel());
+  CollectionModel<EntityModel<Employee>> all(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer size,
+		  WebRequest request) {
+	  // The stamp is read before the employees (watch TableVersions for why). If it is the client's one, checkNotModified() sets 
+	  // the 304 status and the ETag header, and returning null tells Spring MVC that the response is complete : nothing is read, 
+	  // assembled nor serialized. Else, it only sets the ETag header. The request is null when called by allAsync().
+	  if (request != null && request.checkNotModified(tableVersions.etag(Employee.class))) {
+		  return null;
+	  }
+	  
+	  return page(after, size).get();
+  }
+
+  /**
+   * The work of all(), once its links are resolved. Spring HATEOAS reads the current request to build links, so they are 
+   * resolved here, on the request's thread, and the returned Supplier only reads the employees and expands the links : it may 
+   * run later on another thread (see allAsync()), when the request is no longer usable.
+   */
+  private Supplier<CollectionModel<EntityModel<Employee>>> page(Long after, Integer size) {
+	  KeysetPageRequest page = KeysetPageRequest.of(after, size);
+	  String baseUri = LinkTemplate.currentBaseUri();
+	  Link self = linkTo(methodOn(EmployeeController.class).all(after, size, null)).withSelfRel().expand();
+	  Link next = linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel(IanaLinkRelations.NEXT);
+	  
+	  // Retrieve one page of employees from the repository (H2 data base table).
+	  return () -> page.toCollectionModel(repository.findByIdGreaterThanOrderByIdAsc(page.getAfter(), page.toPageable()),
+			  						row -> assembler.toModel(row, baseUri),
+			  						Employee::getId,
+			  						self,
+			  						lastId -> next.expand(lastId, page.getSize()));
+  }
+
+  /**
+   * Employees whose first name, last name or role have words starting with each word of "q", the best matching first : 
+   * "/employees/search?q=bag" finds "Bilbo Baggins" and "Frodo Baggins", "/employees/search?q=fro bag" only "Frodo Baggins".<br/>
+   * At most "size" employees are returned (see KeysetPageRequest for its default and maximum values), in the same format as 
+   * all(), without "next" link. Searching uses the full-text index of EmployeeSearchIndex, not a scan of the table.<br/>
+   * <br/>
+   * Because "/employees/search" is more specific than "/employees/{id}", Spring MVC maps it to this method.
+   */
+  @GetMapping("/employees/search")
+  CollectionModel<EntityModel<Employee>> search(@RequestParam String q, @RequestParam(required = false) Integer size) {
+	  String query = EmployeeSearchIndex.toMatchQuery(q);
+	  List<Employee> employees = query.isEmpty() ? List.of() : repository.search(query, KeysetPageRequest.of(null, size).getSize());
+	  String baseUri = LinkTemplate.currentBaseUri();
+	  
+	  return CollectionModel.of(employees.stream().map(employee -> assembler.toModel(employee, baseUri)).collect(Collectors.toList()),
+			  					linkTo(methodOn(EmployeeController.class).search(q, size)).withSelfRel().expand());
+  }
+
+  /**
+   * Export every employee, one JSON object per line ("application/x-ndjson"), for example :
+   * 
+		{"id":1,"firstName":"Bilbo","lastName":"Baggins","role":"burglar","name":"Bilbo Baggins"}
+		{"id":2,"firstName":"Frodo","lastName":"Baggins","role":"thief","name":"Frodo Baggins"}
+   * 
+   * Rows are written to the response while they are read, so memory use does not depend on the table's size. Watch 
+   * NdjsonStreamer for more explanations.<br/>
+   * <br/>
+   * Because "/employees/export" is more specific than "/employees/{id}", Spring MVC maps it to this method.
+   */
+  @GetMapping(value = "/employees/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  void export(HttpServletResponse response) throws IOException {
+	  streamer.write(response, repository::streamAllByOrderByIdAsc);
   }
 
   /**
@@ -140,13 +242,51 @@ public class EmployeeController {
    */
   @PostMapping("/employees")
   ResponseEntity<?> newEmployee(@RequestBody Employee newEmployee) {
-	  // Save the provided employee into the repository (H2 data base table).
-	  EntityModel<Employee> entityModel = assembler.toModel(repository.save(newEmployee));
+	  return create(newEmployee).get();
+  }
+
+  /**
+   * The work of newEmployee(), once the base URI of its links is read on the request's thread. Watch page() for why.
+   */
+  private Supplier<ResponseEntity<?>> create(Employee newEmployee) {
+	  String baseUri = LinkTemplate.currentBaseUri();
+
+	  return () -> {
+		  // Ids are generated : an id sent by the client is ignored. This way save() always calls persist(), that reserves the id 
+		  // before taking the writer connection (see SQLiteDataSourceConfig), instead of merge(), that would read the data base first.
+		  newEmployee.setId(null);
+
+		  // Save the provided employee into the repository (H2 data base table).
+		  EntityModel<Employee> entityModel = assembler.toModel(repository.save(newEmployee), baseUri);
+
+		  // Return the model-based version of the saved object. Its "Location" header is the self link.
+		  return ResponseEntity
+			      .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+			      .body(entityModel);
+	  };
+  }
+
+  /**
+   * Create all the employees of the JSON array provided as body, in one transaction and by JDBC batches. For example, posting :
+   * 
+		[
+		  { "firstName": "Samwise", "lastName": "Gamgee", "role": "gardener" },
+		  { "firstName": "Peregrin", "lastName": "Took", "role": "fool" }
+		]
+   * 
+   * will answer "201 Created" with the ids of the created employees and links to them (watch BatchResult for an example).<br/>
+   * <br/>
+   * Receiving an InputStream instead of a @RequestBody List<Employee> lets BatchInserter read the JSON array progressively. 
+   * Watch BatchInserter for more explanations.
+   */
+  @PostMapping("/employees/batch")
+  ResponseEntity<BatchResult> newEmployees(InputStream body) {
+	  List<Long> ids = batchInserter.insert(body, Employee.class, employee -> employee.setId(null), Employee::getId);
 	  
-	  // Return the model-based version of the saved object.
+	  String baseUri = LinkTemplate.currentBaseUri();
 	  return ResponseEntity
-		      .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
-		      .body(entityModel);
+			  .status(HttpStatus.CREATED)
+			  .body(new BatchResult(ids, id -> assembler.selfHref(id, baseUri)));
   }
 
   /**
@@ -168,32 +308,57 @@ public class EmployeeController {
 			}
 		}
    *	
+   * The response has an ETag header, the version of the employee (for example "3"). A client sending it back in an 
+   * "If-None-Match" header gets a "304 Not Modified" status without body if the employee did not change. Watch ETags for more 
+   * explanations.
    */
   @GetMapping("/employees/{id}")
-  EntityModel<Employee> one(@PathVariable Long id) {
-	  // Look for the employee corresponding to provided id into the repository (H2 data base table).
-	  Employee employee = repository.findById(id)
+  EntityModel<Employee> one(@PathVariable Long id, WebRequest request) {
+	  // Look for the employee corresponding to provided id into the repository (H2 data base table), or into the cache if it was
+	  // read recently (see EntityCacheConfig). Methods that modify the employee (replaceEmployee(), deleteEmployee()) remove it from
+	  // the cache through the repository.
+	  Employee employee = repository.findCachedById(id)
 		      						.orElseThrow(() -> new EmployeeNotFoundException(id));
+	  
+	  // The version is compared before building the model (watch all()).
+	  if (request != null && request.checkNotModified(ETags.ofVersion(employee.getVersion()))) {
+		  return null;
+	  }
 	
 	  return assembler.toModel(employee);
   }
 
   /**
-   * Described previously but not used since : @PutMapping declare this method as a HTTP PUT requests handler.
+   * Described previously but not used since : @PutMapping declare this method as a HTTP PUT requests handler.<br/>
+   * <br/>
+   * With an "If-Match" header, the employee is only replaced if it is still the version read by the client (the ETag of one()). 
+   * Else the response has a "412 Precondition Failed" status, and the client should read the employee again : another request 
+   * modified it meanwhile. The response has the ETag of the new version.
    */
   @PutMapping("/employees/{id}")
-  ResponseEntity<?> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id) {
+  ResponseEntity<?> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id, WebRequest request) {
+	  Optional<Employee> existing = repository.findById(id);
+	  
+	  // The version is compared with the "If-Match" header (see ETags). An employee modified after this check is not overwritten 
+	  // either : Hibernate checks the version read here when saving (see ConcurrentModificationAdvice). An "If-Match" header 
+	  // for a missing employee can not match.
+	  String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+	  if (existing.isPresent() ? !ETags.matches(ifMatch, existing.get().getVersion()) : ifMatch != null) {
+		  return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+	  }
+	  
 	  // Look for the employee corresponding to provided id into the repository (H2 data base table). 
 	  // If present, replace it into the repo by the new one.
-	  // If absent, create a new employee into the repo.
-	  Employee updatedEmployee = repository.findById(id)
+	  // If absent, create a new employee into the repo. As ids are generated, the new employee gets a new id, not the provided one 
+	  // (watch newEmployee() for why we do not let JPA find it out by itself).
+	  Employee updatedEmployee = existing
 									      .map(employee -> {
 									        employee.setName(newEmployee.getName());
 									        employee.setRole(newEmployee.getRole());
 									        return repository.save(employee);
 									      })
 									      .orElseGet(() -> {
-									        newEmployee.setId(id);
+									        newEmployee.setId(null);
 									        return repository.save(newEmployee);
 									      });
 	  
@@ -201,17 +366,63 @@ public class EmployeeController {
 	  
 	  return ResponseEntity
 		      .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+		      .eTag(ETags.ofVersion(updatedEmployee.getVersion()))
 		      .body(entityModel);
   }
 
   /**
-   * Described previously but not used since : @PutMapping declare this method as a HTTP DELETE requests handler.
+   * Described previously but not used since : @PutMapping declare this method as a HTTP DELETE requests handler.<br/>
+   * With an "If-Match" header, the employee is only deleted if it is still the version read by the client (watch 
+   * replaceEmployee()).
    */
   @DeleteMapping("/employees/{id}")
-  ResponseEntity<?> deleteEmployee(@PathVariable Long id) {
-	  // Remove the employee corresponding to provided id from the repository (H2 data base table). 
-	  repository.deleteById(id);
+  ResponseEntity<?> deleteEmployee(@PathVariable Long id, WebRequest request) {
+	  Employee employee = repository.findById(id)
+			  						.orElseThrow(() -> new EmployeeNotFoundException(id));
+	  
+	  if (!ETags.matches(request.getHeader(HttpHeaders.IF_MATCH), employee.getVersion())) {
+		  return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+	  }
+	  
+	  // Remove the employee from the repository (H2 data base table). Deleting the read instance rather than its id makes 
+	  // Hibernate check its version too.
+	  repository.delete(employee);
 	  
 	  return ResponseEntity.noContent().build();
   }
+
+  /**
+   * Asynchronous version of all() : "/async/employees" returns the same page, but Tomcat's thread does not wait for the data 
+   * base.<br/>
+   * The work of all() is run on DatabaseExecutor's threads, and this method returns at once a CompletableFuture, that will complete 
+   * with its result. Its links are resolved before (see page()) : the work may wait in DatabaseExecutor's queue until the request's 
+   * thread has returned. Spring MVC then keeps the request open, frees Tomcat's thread, and writes the response when the CompletableFuture 
+   * completes. If all() throws an exception (or DatabaseExecutor refuses the work), the advices (see EmployeeNotFoundAdvice) 
+   * handle it as usual.<br/>
+   * Watch DatabaseExecutor for more details.
+   */
+  @GetMapping("/async/employees")
+  CompletableFuture<CollectionModel<EntityModel<Employee>>> allAsync(@RequestParam(required = false) Long after,
+		  @RequestParam(required = false) Integer size) {
+	  return databaseExecutor.supply(page(after, size));
+  }
+
+  /**
+   * Asynchronous version of one(). Watch allAsync() for more details. Conditional requests (ETags) are only handled by the 
+   * synchronous endpoints.
+   */
+  @GetMapping("/async/employees/{id}")
+  CompletableFuture<EntityModel<Employee>> oneAsync(@PathVariable Long id) {
+	  String baseUri = LinkTemplate.currentBaseUri();
+	  return databaseExecutor.supply(() -> assembler.toModel(repository.findCachedById(id)
+			  													.orElseThrow(() -> new EmployeeNotFoundException(id)), baseUri));
+  }
+
+  /**
+   * Asynchronous version of newEmployee(). Watch allAsync() for more details.
+   */
+  @PostMapping("/async/employees")
+  CompletableFuture<ResponseEntity<?>> newEmployeeAsync(@RequestBody Employee newEmployee) {
+	  return databaseExecutor.supply(create(newEmployee));
+  }
 }
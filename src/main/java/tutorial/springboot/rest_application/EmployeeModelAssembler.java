@@ -3,27 +3,51 @@ package tutorial.springboot.rest_application;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import tutorial.springboot.hateoas.LinkTemplate;
+
 /**
  * This class implements RepresentationModelAssembler interface, which is part of Spring HATEOAS. It has one method, toModel(), 
  * whose based on converting a non-model object (here Employee) into a model-based object (here EntityModel<Employee>).<br/>
  * <br/>
  * In addition to implementing the interface, we just had to add @Component annotation for allowing this assembler to be automatically 
  * created by Spring when the application starts. @Component annotated classes are considered as candidates for auto-detection when 
- * using annotation-based configuration and classpath scanning. 
+ * using annotation-based configuration and classpath scanning.<br/>
+ * <br/>
+ * Links are not built with "linkTo(methodOn(...))" for each employee : the controller's paths are resolved once, when the assembler 
+ * is created, then only the id is changed for each employee. Watch LinkTemplate for more explanations.
  */
 @Component
 public class EmployeeModelAssembler implements RepresentationModelAssembler<Employee, EntityModel<Employee>> {
 
+	private final LinkTemplate one = LinkTemplate.of(methodOn(EmployeeController.class).one(null, null));
+	private final LinkTemplate all = LinkTemplate.of(methodOn(EmployeeController.class).all(null, null, null));
+
 	/**
 	 * Convert Employee objects to EntityModel<Employee> objects. 
 	 */
 	@Override
 	public EntityModel<Employee> toModel(Employee employee) {
+		return toModel(employee, LinkTemplate.currentBaseUri());
+	}
+
+	/**
+	 * Same as toModel(Employee), with the base URI of the request already known (see LinkTemplate.currentBaseUri()). It does not 
+	 * depend on the current request, so it may be called from any thread.
+	 */
+	public EntityModel<Employee> toModel(Employee employee, String baseUri) {
 		return EntityModel.of(employee, //
-					linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel(),
-					linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+					Link.of(selfHref(employee.getId(), baseUri)),
+					Link.of(all.href(baseUri), "employees"));
+	}
+
+	/**
+	 * Href of the self link of the employee whose id is provided (for example "http://localhost:8080/employees/1").
+	 */
+	public String selfHref(Long id, String baseUri) {
+		return one.href(baseUri, id);
 	}
-}
\ No newline at end of file
+}
@@ -1,6 +1,22 @@
 package tutorial.springboot.rest_application;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import tutorial.springboot.cache.EntityCacheConfig;
+import tutorial.springboot.streaming.NdjsonStreamer;
 
 /**
  * Spring makes accessing data easy. By simply declaring this interface we automatically will be able to work with Data Base. We
@@ -15,4 +31,77 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
+	/**
+	 * Spring Data JPA builds the query from the method's name : "select ... from employee where id > ? order by id asc", 
+	 * limited by the provided Pageable. Used for keyset pagination (see KeysetPageRequest).<br/>
+	 * Returning a List rather than a Page prevents Spring Data from running an additional "count" query.
+	 */
+	List<Employee> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+	/**
+	 * "select ... where first_name = ? and last_name = ? limit 1" : whether such an employee exists, without reading it. Used by
+	 * LoadDatabase not to insert its rows again at each startup.
+	 */
+	boolean existsByFirstNameAndLastName(String firstName, String lastName);
+
+	/**
+	 * Read all employees one by one through a forward-only JDBC cursor, instead of loading them all into a List. Used by 
+	 * NdjsonStreamer for exports.<br/>
+	 * @QueryHints pass settings to the JPA provider :<br/>
+	 * - HINT_FETCH_SIZE set how many rows the JDBC driver reads at once.<br/>
+	 * - HINT_READONLY tells Hibernate it will not have to check read entities for modifications, so it does not keep a copy of them.
+	 */
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = NdjsonStreamer.FETCH_SIZE),
+				  @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	Stream<Employee> streamAllByOrderByIdAsc();
+
+	/**
+	 * Best matching employees for an FTS5 query (see EmployeeSearchIndex.toMatchQuery()), the best first. SQL is written by hand
+	 * ("nativeQuery") because the "employee_fts" virtual table is not an entity :<br/>
+	 * - The sub-query only reads the full-text index : "match" finds the ids of matching rows through the inverted index, and 
+	 * 		"order by rank limit ?" keeps the best ones (FTS5 sorts them itself, see EmployeeSearchIndex).<br/>
+	 * - Only these rows are then read from "employee", by primary key.<br/>
+	 * So the cost depends on the number of matching rows, not on the size of the table.
+	 */
+	@Transactional(readOnly = true)
+	@Query(value = "select e.* from employee e "
+			+ "join (select rowid, rank from employee_fts where employee_fts match :query order by rank limit :size) f on e.id = f.rowid "
+			+ "order by f.rank", nativeQuery = true)
+	List<Employee> search(@Param("query") String query, @Param("size") int size);
+
+	/**
+	 * Read an employee by id through the "employees" cache (see EntityCacheConfig). Only used to display an employee : the
+	 * returned instance is shared between requests, so it must never be modified. Methods that modify employees read them with
+	 * findById() instead.<br/>
+	 * Spring Data JPA builds the query from the method's name, as with findById() ("Cached" is ignored). Absent employees are
+	 * not stored : Spring unwraps an empty Optional to null, which "unless" leaves out of the cache. Else an id read before its
+	 * employee is created without save() (by BatchInserter or BulkLoader, that do not evict it) would stay "404 Not Found".<br/>
+	 * The read-only transaction lets it use a read-only SQLite connection.
+	 */
+	@Cacheable(cacheNames = EntityCacheConfig.EMPLOYEES, unless = "#result == null")
+	@Transactional(readOnly = true)
+	Optional<Employee> findCachedById(Long id);
+
+	/**
+	 * Same as JpaRepository.save(), and then remove the saved employee from the cache. "#result" is the returned employee, whose
+	 * id is known even if it was just created.
+	 */
+	@Override
+	@CacheEvict(cacheNames = EntityCacheConfig.EMPLOYEES, key = "#result.id")
+	<S extends Employee> S save(S entity);
+
+	/**
+	 * Same as JpaRepository.deleteById(), and then remove the employee from the cache.
+	 */
+	@Override
+	@CacheEvict(EntityCacheConfig.EMPLOYEES)
+	void deleteById(Long id);
+
+	/**
+	 * Same as JpaRepository.delete(), and then remove the employee from the cache. Unlike deleteById(), it deletes the given
+	 * instance : Hibernate checks its version ("delete ... where id=? and version=?"), see EmployeeController.deleteEmployee().
+	 */
+	@Override
+	@CacheEvict(cacheNames = EntityCacheConfig.EMPLOYEES, key = "#p0.id")
+	void delete(Employee entity);
 }
@@ -0,0 +1,93 @@
+package tutorial.springboot.rest_application;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Full-text index of employees, used by EmployeeRepository.search() ("/employees/search?q=").<br/>
+ * <br/>
+ * SQLite's FTS5 extension provides "virtual tables" whose rows are indexed word by word (an inverted index : for each word, the 
+ * rows containing it). "employee_fts" indexes the first name, last name and role of each employee :<br/>
+ * - It is an "external content" table ("content='employee'") : the texts are not copied, FTS5 reads them from the "employee" 
+ * 		table when needed, and the row ids of both tables are the same.<br/>
+ * - Triggers on "employee" keep the index up to date after each insertion, modification or deletion, whatever does it 
+ * 		(repositories, batches, another application...).<br/>
+ * - "prefix='2 3'" also indexes the first 2 and 3 letters of each word, so that prefix searches ("bag*") of short prefixes do 
+ * 		not have to scan every word of the index. Longer prefixes are found through the sorted words.<br/>
+ * - "remove_diacritics 2" lets "eowyn" find "Éowyn".<br/>
+ * - The "rank" of a row is its bm25 score (how well it matches, according to the frequency of the searched words), with names 
+ * 		weighing twice as much as the role. Sorting by rank uses FTS5's own optimization.<br/>
+ * <br/>
+ * Hibernate creates the "employee" table, but not virtual tables nor triggers : they are created here, once the 
+ * EntityManagerFactory (which updates the schema) is ready, and before CommandLineRunners insert employees. When the index is 
+ * created on an existing data base, it is built from the rows already present ("rebuild"). Everything is written through the 
+ * writer connection (see SQLiteDataSourceConfig).<br/>
+ * <br/>
+ * No other bean uses this one : @Lazy(false) creates it at startup even when beans are lazily created (see StartupConfig).
+ */
+@Component
+@Lazy(false)
+@DependsOn("entityManagerFactory")
+public class EmployeeSearchIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(EmployeeSearchIndex.class);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	EmployeeSearchIndex(HikariDataSource sqliteWriterPool) {
+		this.jdbcTemplate = new JdbcTemplate(sqliteWriterPool);
+	}
+
+	@PostConstruct
+	void create() {
+		boolean exists = jdbcTemplate.queryForObject(
+				"select count(*) from sqlite_master where type = 'table' and name = 'employee_fts'", Integer.class) > 0;
+
+		jdbcTemplate.execute("create virtual table if not exists employee_fts using fts5("
+				+ "first_name, last_name, role, content='employee', content_rowid='id', "
+				+ "prefix='2 3', tokenize='unicode61 remove_diacritics 2')");
+		jdbcTemplate.execute("create trigger if not exists employee_fts_insert after insert on employee begin "
+				+ "insert into employee_fts(rowid, first_name, last_name, role) values (new.id, new.first_name, new.last_name, new.role); "
+				+ "end");
+		jdbcTemplate.execute("create trigger if not exists employee_fts_delete after delete on employee begin "
+				+ "insert into employee_fts(employee_fts, rowid, first_name, last_name, role) "
+				+ "values ('delete', old.id, old.first_name, old.last_name, old.role); "
+				+ "end");
+		// Only fired when an indexed column changes (not for the version alone).
+		jdbcTemplate.execute("create trigger if not exists employee_fts_update after update of first_name, last_name, role on employee begin "
+				+ "insert into employee_fts(employee_fts, rowid, first_name, last_name, role) "
+				+ "values ('delete', old.id, old.first_name, old.last_name, old.role); "
+				+ "insert into employee_fts(rowid, first_name, last_name, role) values (new.id, new.first_name, new.last_name, new.role); "
+				+ "end");
+		// bm25's weights of the first name, last name and role columns. This setting is stored with the index.
+		jdbcTemplate.update("insert into employee_fts(employee_fts, rank) values ('rank', 'bm25(2.0, 2.0, 1.0)')");
+
+		if (!exists) {
+			jdbcTemplate.update("insert into employee_fts(employee_fts) values ('rebuild')");
+			log.info("Full-text index of employees built");
+		}
+	}
+
+	/**
+	 * Turn the text typed by a user into an FTS5 query : each word must match the beginning of a word of the first name, last 
+	 * name or role, for example "bil bag" gives "\"bil\"* \"bag\"*". Words are quoted, so that FTS5's operators ("AND", "NEAR", 
+	 * "-"...) typed by users are searched as text instead of failing. Returns an empty string if there is no word.
+	 */
+	static String toMatchQuery(String text) {
+		return Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+				.filter(word -> !word.isEmpty())
+				.map(word -> '"' + word + "\"*")
+				.collect(Collectors.joining(" "));
+	}
+}
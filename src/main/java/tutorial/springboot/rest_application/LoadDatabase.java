@@ -1,5 +1,9 @@
 package tutorial.springboot.rest_application;
 
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -21,23 +25,24 @@ public class LoadDatabase {
    * <br/>
    * Spring will automatically inject an EmployeeRepository when method will be called, then this runner will create two entities 
    * and store them into the data base.<br/>
-   * Same things is performer with OrderRepository.
+   * Same things is performer with OrderRepository.<br/>
+   * <br/>
+   * The data base is kept between startups : rows that already exist are not inserted again. The other ones are inserted by 
+   * saveAll(), in one transaction whose INSERTs are sent in one JDBC batch.
    */
   @Bean
   CommandLineRunner initDatabase(EmployeeRepository employeeRepository, OrderRepository orderRepository) {
 
     return args -> {
-    	log.info("Preloading " + employeeRepository.save(new Employee("Bilbo", "Baggins", "burglar")));
-    	log.info("Preloading " + employeeRepository.save(new Employee("Frodo", "Baggins", "thief")));
-    	
-    	employeeRepository.findAll().forEach(employee -> log.info("Preloaded " + employee));
-    	
-    	orderRepository.save(new Order("MacBook Pro", Status.COMPLETED));
-        orderRepository.save(new Order("iPhone", Status.IN_PROGRESS));
+    	List<Employee> employees = Stream.of(new Employee("Bilbo", "Baggins", "burglar"), new Employee("Frodo", "Baggins", "thief"))
+    			.filter(employee -> !employeeRepository.existsByFirstNameAndLastName(employee.getFirstName(), employee.getLastName()))
+    			.collect(Collectors.toList());
+    	employeeRepository.saveAll(employees).forEach(employee -> log.info("Preloaded " + employee));
 
-        orderRepository.findAll().forEach(order -> {
-          log.info("Preloaded " + order);
-        });
+    	List<Order> orders = Stream.of(new Order("MacBook Pro", Status.COMPLETED), new Order("iPhone", Status.IN_PROGRESS))
+    			.filter(order -> !orderRepository.existsByDescription(order.getDescription()))
+    			.collect(Collectors.toList());
+    	orderRepository.saveAll(orders).forEach(order -> log.info("Preloaded " + order));
     };
   }
-}
\ No newline at end of file
+}
@@ -2,23 +2,52 @@ package tutorial.springboot.rest_application;
 
 import java.util.Objects;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import tutorial.springboot.etag.TableVersionListener;
 
 /**
- * @Table specify that table's name in database differ from name of the class.
+ * @Table specify that table's name in database differ from name of the class.<br/>
+ * Its index on (status, id) lets SQLite find orders of a given status, already sorted by id, without reading the whole table 
+ * (see OrderRepository.findByStatusAndIdGreaterThanOrderByIdAsc()). Hibernate creates it when it updates the schema.<br/>
+ * Ids are allocated by blocks of 50 : watch Employee for more explanations about @SequenceGenerator.<br/>
+ * <br/>
+ * @Version enables optimistic locking. Hibernate increments "version" on each update, and only updates the row if its version is
+ * still the one read with the entity ("update ... where id=? and version=?"). If another request modified the order meanwhile,
+ * no row is updated and Hibernate throws an OptimisticLockException (see ConcurrentModificationAdvice) instead of silently
+ * overwriting the other modification.<br/>
+ * The version is also the order's ETag (see ETags), and @EntityListeners lets TableVersionListener know each modification of the
+ * table, for the ETag of "/orders".
  */
 @Entity
-@Table(name = "CUSTOMER_ORDER")
+@EntityListeners(TableVersionListener.class)
+@Table(name = "CUSTOMER_ORDER", indexes = @Index(name = "customer_order_status_id", columnList = "status, id"))
 public class Order {
 
-	  private @Id @GeneratedValue Long id;
+	  @Id
+	  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_id")
+	  @SequenceGenerator(name = "order_id", sequenceName = "hibernate_sequence", allocationSize = 50)
+	  private Long id;
 
 	  private String description;
 	  private Status status;
 
+	  // The default value gives a version to orders created before this column existed, as the table's schema is updated by Hibernate.
+	  @Version
+	  @Column(columnDefinition = "integer default 0")
+	  private Long version;
+
 	  Order() {}
 
 	  Order(String description, Status status) {
@@ -39,6 +68,14 @@ public class Order {
 	    return this.status;
 	  }
 
+	  /**
+	   * Not written in JSON : clients get it as the ETag header.
+	   */
+	  @JsonIgnore
+	  public Long getVersion() {
+	    return this.version;
+	  }
+
 	  public void setId(Long id) {
 	    this.id = id;
 	  }
@@ -2,15 +2,25 @@ package tutorial.springboot.rest_application;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,7 +28,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import tutorial.springboot.batch.BatchInserter;
+import tutorial.springboot.batch.BatchResult;
+import tutorial.springboot.etag.ETags;
+import tutorial.springboot.etag.TableVersions;
+import tutorial.springboot.hateoas.LinkTemplate;
+import tutorial.springboot.pagination.KeysetPageRequest;
+import tutorial.springboot.streaming.NdjsonStreamer;
+import tutorial.springboot.threads.DatabaseExecutor;
 
 /**
  * Watch inside EmployeeController for more details on controllers.
@@ -28,72 +49,194 @@ public class OrderController {
 
   private final OrderRepository orderRepository;
   private final OrderModelAssembler assembler;
+  private final NdjsonStreamer streamer;
+  private final BatchInserter batchInserter;
+  private final OrderStatusCounters counters;
+  private final DatabaseExecutor databaseExecutor;
+  private final TableVersions tableVersions;
 
-  OrderController(OrderRepository orderRepository, OrderModelAssembler assembler) {
+  OrderController(OrderRepository orderRepository, OrderModelAssembler assembler, NdjsonStreamer streamer,
+      BatchInserter batchInserter, OrderStatusCounters counters, DatabaseExecutor databaseExecutor, TableVersions tableVersions) {
 
     this.orderRepository = orderRepository;
     this.assembler = assembler;
+    this.streamer = streamer;
+    this.batchInserter = batchInserter;
+    this.counters = counters;
+    this.databaseExecutor = databaseExecutor;
+    this.tableVersions = tableVersions;
   }
 
+  /**
+   * Keyset paginated list of orders ("/orders?after=<id>&size=N"). Watch EmployeeController.all() for more details.<br/>
+   * With "status" ("/orders?status=IN_PROGRESS"), only the orders of this status are listed, so clients do not have to read the 
+   * whole table to filter it. The "next" link keeps the status.<br/>
+   * The response has the ETag of the orders' table : watch EmployeeController.all() for conditional requests.
+   */
   @GetMapping("/orders")
-  CollectionModel<EntityModel<Order>> all() {
+  CollectionModel<EntityModel<Order>> all(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer size,
+      @RequestParam(required = false) Status status, WebRequest request) {
+
+    if (request != null && request.checkNotModified(tableVersions.etag(Order.class))) {
+      return null;
+    }
+
+    return page(after, size, status).get();
+  }
+
+  /**
+   * The work of all(), with its links resolved on the request's thread. Watch EmployeeController.page() for more details.
+   */
+  private Supplier<CollectionModel<EntityModel<Order>>> page(Long after, Integer size, Status status) {
+    KeysetPageRequest page = KeysetPageRequest.of(after, size);
+    String baseUri = LinkTemplate.currentBaseUri();
+    Link self = linkTo(methodOn(OrderController.class).all(after, size, status, null)).withSelfRel().expand();
+    Link next = linkTo(methodOn(OrderController.class).all(null, null, null, null)).withRel(IanaLinkRelations.NEXT);
+
+    return () -> {
+      List<Order> orders = (status == null)
+          ? orderRepository.findByIdGreaterThanOrderByIdAsc(page.getAfter(), page.toPageable())
+          : orderRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, page.getAfter(), page.toPageable());
+
+      return page.toCollectionModel(orders,
+          row -> assembler.toModel(row, baseUri),
+          Order::getId,
+          self,
+          lastId -> next.expand(lastId, page.getSize(), status));
+    };
+  }
+
+  /**
+   * Number of orders of each status, for example {"IN_PROGRESS":3,"COMPLETED":5,"CANCELLED":1}. It is read from counters kept in
+   * memory (see OrderStatusCounters), not counted in the data base.
+   */
+  @GetMapping("/orders/stats")
+  Map<Status, Long> stats() {
+
+    return counters.snapshot();
+  }
 
-    List<EntityModel<Order>> orders = orderRepository.findAll().stream()
-        .map(assembler::toModel)
-        .collect(Collectors.toList());
+  /**
+   * Export every order as NDJSON. Watch EmployeeController.export() for more details.
+   */
+  @GetMapping(value = "/orders/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  void export(HttpServletResponse response) throws IOException {
 
-    return CollectionModel.of(orders,
-        linkTo(methodOn(OrderController.class).all()).withSelfRel());
+    streamer.write(response, orderRepository::streamAllByOrderByIdAsc);
   }
 
+  /**
+   * The response has the order's version as ETag : watch EmployeeController.one() for conditional requests.
+   */
   @GetMapping("/orders/{id}")
-  EntityModel<Order> one(@PathVariable Long id) {
+  EntityModel<Order> one(@PathVariable Long id, WebRequest request) {
 
-    Order order = orderRepository.findById(id)
+    // Cached read. cancel() and complete() remove the order from the cache when saving it (watch EmployeeController.one()).
+    Order order = orderRepository.findCachedById(id)
         .orElseThrow(() -> new OrderNotFoundException(id));
 
+    if (request != null && request.checkNotModified(ETags.ofVersion(order.getVersion()))) {
+      return null;
+    }
+
     return assembler.toModel(order);
   }
 
   @PostMapping("/orders")
   ResponseEntity<EntityModel<Order>> newOrder(@RequestBody Order order) {
 
-    order.setStatus(Status.IN_PROGRESS);
-    Order newOrder = orderRepository.save(order);
+    return create(order).get();
+  }
 
-    return ResponseEntity
-        .created(linkTo(methodOn(OrderController.class).one(newOrder.getId())).toUri())
-        .body(assembler.toModel(newOrder));
+  /**
+   * The work of newOrder(), with the base URI of its links read on the request's thread. Watch EmployeeController.page() for why.
+   */
+  private Supplier<ResponseEntity<EntityModel<Order>>> create(Order order) {
+    String baseUri = LinkTemplate.currentBaseUri();
+
+    return () -> {
+      // Watch EmployeeController.newEmployee() for why the provided id is ignored.
+      order.setId(null);
+      order.setStatus(Status.IN_PROGRESS);
+      Order newOrder = orderRepository.save(order);
+      counters.add(Status.IN_PROGRESS, 1);
+
+      EntityModel<Order> orderModel = assembler.toModel(newOrder, baseUri);
+      return ResponseEntity
+          .created(orderModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+          .body(orderModel);
+    };
   }
   
-  @DeleteMapping("/orders/{id}/cancel")
-  ResponseEntity<?> cancel(@PathVariable Long id) {
+  /**
+   * Create all the orders of the JSON array provided as body, with the IN_PROGRESS status. Watch EmployeeController.newEmployees() 
+   * for more details.
+   */
+  @PostMapping("/orders/batch")
+  ResponseEntity<BatchResult> newOrders(InputStream body) {
 
-    Order order = orderRepository.findById(id)
-        .orElseThrow(() -> new OrderNotFoundException(id));
-
-    if (order.getStatus() == Status.IN_PROGRESS) {
-      order.setStatus(Status.CANCELLED);
-      return ResponseEntity.ok(assembler.toModel(orderRepository.save(order)));
-    }
+    List<Long> ids = batchInserter.insert(body, Order.class, order -> {
+      order.setId(null);
+      order.setStatus(Status.IN_PROGRESS);
+    }, Order::getId);
+    counters.add(Status.IN_PROGRESS, ids.size());
 
+    String baseUri = LinkTemplate.currentBaseUri();
     return ResponseEntity
-        .status(HttpStatus.METHOD_NOT_ALLOWED)
-        .header(HttpHeaders. CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE)
-        .body(Problem.create()
-            .withTitle("Method not allowed")
-            .withDetail("You can't cancel an order that is in the " + order.getStatus() + " status"));
+        .status(HttpStatus.CREATED)
+        .body(new BatchResult(ids, id -> assembler.selfHref(id, baseUri)));
+  }
+  
+  /**
+   * Cancel an order that is IN_PROGRESS. Orders that are COMPLETED or CANCELLED can not be cancelled (405 status).
+   */
+  @DeleteMapping("/orders/{id}/cancel")
+  ResponseEntity<?> cancel(@PathVariable Long id, WebRequest request) {
+
+    return changeStatus(id, Status.CANCELLED, "cancel", request);
   }
   
+  /**
+   * Complete an order that is IN_PROGRESS. Orders that are COMPLETED or CANCELLED can not be completed (405 status).
+   */
   @PutMapping("/orders/{id}/complete")
-  ResponseEntity<?> complete(@PathVariable Long id) {
+  ResponseEntity<?> complete(@PathVariable Long id, WebRequest request) {
+
+    return changeStatus(id, Status.COMPLETED, "complete", request);
+  }
+
+  /**
+   * Reading the order, checking its status in Java and saving it would let two requests both see the order IN_PROGRESS, and 
+   * for example cancel an order that was just completed. Instead, the status is checked and changed by a single conditional 
+   * UPDATE, which returns the updated row (see OrderRepository.updateStatus()) :<br/>
+   * - An order : the status was changed, and the response is built from it. A single SQL statement was sent.<br/>
+   * - None : the order does not exist (404 status), or is not IN_PROGRESS. It is read to tell the client its current status.<br/>
+   * <br/>
+   * With an "If-Match" header (the ETag of one()), the UPDATE also checks the order's version : the status is only changed if
+   * the order is still the version read by the client, else the response has a "412 Precondition Failed" status.
+   */
+  private ResponseEntity<?> changeStatus(Long id, Status status, String action, WebRequest request) {
+
+    String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+    Long expectedVersion = ETags.versionOf(ifMatch);
+    Optional<Order> updated = (expectedVersion == null)
+        ? orderRepository.updateStatus(id, Status.IN_PROGRESS, status)
+        : orderRepository.updateStatus(id, Status.IN_PROGRESS, status, expectedVersion);
+
+    if (updated.isPresent()) {
+      counters.move(Status.IN_PROGRESS, status);
+      // The UPDATE query does not go through TableVersionListener.
+      tableVersions.changed(Order.class);
+      return ResponseEntity.ok()
+          .eTag(ETags.ofVersion(updated.get().getVersion()))
+          .body(assembler.toModel(updated.get()));
+    }
 
     Order order = orderRepository.findById(id)
         .orElseThrow(() -> new OrderNotFoundException(id));
 
-    if (order.getStatus() == Status.IN_PROGRESS) {
-      order.setStatus(Status.COMPLETED);
-      return ResponseEntity.ok(assembler.toModel(orderRepository.save(order)));
+    if (!ETags.matches(ifMatch, order.getVersion())) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
     }
 
     return ResponseEntity
@@ -101,6 +244,36 @@ public class OrderController {
         .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE)
         .body(Problem.create()
             .withTitle("Method not allowed")
-            .withDetail("You can't complete an order that is in the " + order.getStatus() + " status"));
+            .withDetail("You can't " + action + " an order that is in the " + order.getStatus() + " status"));
+  }
+
+  /**
+   * Asynchronous version of all(). Watch EmployeeController.allAsync() for more details.
+   */
+  @GetMapping("/async/orders")
+  CompletableFuture<CollectionModel<EntityModel<Order>>> allAsync(@RequestParam(required = false) Long after,
+      @RequestParam(required = false) Integer size, @RequestParam(required = false) Status status) {
+
+    return databaseExecutor.supply(page(after, size, status));
+  }
+
+  /**
+   * Asynchronous version of one(). Watch EmployeeController.allAsync() for more details.
+   */
+  @GetMapping("/async/orders/{id}")
+  CompletableFuture<EntityModel<Order>> oneAsync(@PathVariable Long id) {
+
+    String baseUri = LinkTemplate.currentBaseUri();
+    return databaseExecutor.supply(() -> assembler.toModel(orderRepository.findCachedById(id)
+        .orElseThrow(() -> new OrderNotFoundException(id)), baseUri));
+  }
+
+  /**
+   * Asynchronous version of newOrder(). Watch EmployeeController.allAsync() for more details.
+   */
+  @PostMapping("/async/orders")
+  CompletableFuture<ResponseEntity<EntityModel<Order>>> newOrderAsync(@RequestBody Order order) {
+
+    return databaseExecutor.supply(create(order));
   }
 }
@@ -3,33 +3,57 @@ package tutorial.springboot.rest_application;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import tutorial.springboot.hateoas.LinkTemplate;
+
 /**
  * Watch inside EmployeeModelAssembler for more details on model assemblers.
  */
 @Component
 public class OrderModelAssembler  implements RepresentationModelAssembler<Order, EntityModel<Order>> {
 
+  private final LinkTemplate one = LinkTemplate.of(methodOn(OrderController.class).one(null, null));
+  private final LinkTemplate all = LinkTemplate.of(methodOn(OrderController.class).all(null, null, null, null));
+  private final LinkTemplate cancel = LinkTemplate.of(methodOn(OrderController.class).cancel(null, null));
+  private final LinkTemplate complete = LinkTemplate.of(methodOn(OrderController.class).complete(null, null));
+
   @Override
   public EntityModel<Order> toModel(Order order) {
 
+    return toModel(order, LinkTemplate.currentBaseUri());
+  }
+
+  /**
+   * Thread independent version of toModel(Order). Watch EmployeeModelAssembler for more details.
+   */
+  public EntityModel<Order> toModel(Order order, String baseUri) {
+
     // Unconditional links to single-item resource and aggregate root
 
     EntityModel<Order> orderModel = EntityModel.of(order,
-        linkTo(methodOn(OrderController.class).one(order.getId())).withSelfRel(),
-        linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+        Link.of(selfHref(order.getId(), baseUri)),
+        Link.of(all.href(baseUri), "orders"));
 
     // Conditional links based on state of the order
 
     if (order.getStatus() == Status.IN_PROGRESS) {
-      orderModel.add(linkTo(methodOn(OrderController.class).cancel(order.getId())).withRel("cancel"));
-      orderModel.add(linkTo(methodOn(OrderController.class).complete(order.getId())).withRel("complete"));
+      orderModel.add(Link.of(cancel.href(baseUri, order.getId()), "cancel"));
+      orderModel.add(Link.of(complete.href(baseUri, order.getId()), "complete"));
     }
 
     return orderModel;
   }
+
+  /**
+   * Href of the self link of the order whose id is provided (for example "http://localhost:8080/orders/1").
+   */
+  public String selfHref(Long id, String baseUri) {
+
+    return one.href(baseUri, id);
+  }
 }
 
 
@@ -0,0 +1,21 @@
+package tutorial.springboot.rest_application;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Return a 404 status with the exception's message when an order is not found. Watch EmployeeNotFoundAdvice for more details.
+ */
+@ControllerAdvice
+public class OrderNotFoundAdvice {
+
+	@ResponseBody
+	@ExceptionHandler(OrderNotFoundException.class)
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	String orderNotFoundHandler(OrderNotFoundException ex) {
+		return ex.getMessage();
+	}
+}
@@ -1,10 +1,108 @@
 package tutorial.springboot.rest_application;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import tutorial.springboot.cache.EntityCacheConfig;
+import tutorial.springboot.streaming.NdjsonStreamer;
 
 /**
  * Allow working with orders in data base. Watch EmployeeRepository for more explanations.
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+	/**
+	 * Keyset pagination's query. Watch EmployeeRepository for more explanations.
+	 */
+	List<Order> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+	/**
+	 * Whether an order of this description exists. Watch EmployeeRepository.existsByFirstNameAndLastName() for more explanations.
+	 */
+	boolean existsByDescription(String description);
+
+	/**
+	 * Keyset pagination's query, only for orders of the given status : "select ... where status = ? and id > ? order by id asc".
+	 * It uses the (status, id) index declared on Order.
+	 */
+	List<Order> findByStatusAndIdGreaterThanOrderByIdAsc(Status status, Long after, Pageable pageable);
+
+	/**
+	 * Number of orders of each status, as rows of two values : the status, and its number of orders. Only used at startup, by
+	 * OrderStatusCounters.
+	 */
+	@Transactional(readOnly = true)
+	@Query("select o.status, count(o) from Order o group by o.status")
+	List<Object[]> countByStatus();
+
+	/**
+	 * Cursor-based reading of the whole table, for exports. Watch EmployeeRepository for more explanations.
+	 */
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = NdjsonStreamer.FETCH_SIZE),
+				  @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	Stream<Order> streamAllByOrderByIdAsc();
+
+	/**
+	 * Read an order by id through the "orders" cache. Watch EmployeeRepository for more explanations.
+	 */
+	@Cacheable(cacheNames = EntityCacheConfig.ORDERS, unless = "#result == null")
+	@Transactional(readOnly = true)
+	Optional<Order> findCachedById(Long id);
+
+	/**
+	 * Save an order, and then remove it from the cache.
+	 */
+	@Override
+	@CacheEvict(cacheNames = EntityCacheConfig.ORDERS, key = "#result.id")
+	<S extends Order> S save(S entity);
+
+	/**
+	 * Delete an order, and then remove it from the cache.
+	 */
+	@Override
+	@CacheEvict(EntityCacheConfig.ORDERS)
+	void deleteById(Long id);
+
+	/**
+	 * Change the status of an order, only if it currently has the expected status, and return the changed order, with a single SQL
+	 * statement :<br/>
+	 * "update customer_order set status=?, version=version+1 where id=? and status=? returning *".<br/>
+	 * The check and the modification are done by SQLite at once, so two requests can not both see an order IN_PROGRESS and
+	 * both change it. "returning" (SQLite 3.35 and later) gives the updated row back, as a select would : no other query is needed
+	 * to know the new order. The result is empty if the order does not exist or does not have the expected status.<br/>
+	 * <br/>
+	 * JPQL has no "returning", hence the native query, where the statuses are given as their ordinal, as Hibernate stores them
+	 * (see Order). Without @Modifying, Spring Data runs it as a query and Hibernate reads its row into an Order. @Transactional
+	 * runs it on the writer connection, instead of the read-only transaction of query methods. The version is incremented as
+	 * Hibernate would do, and the order is removed from the cache.
+	 */
+	@Transactional
+	@CacheEvict(cacheNames = EntityCacheConfig.ORDERS, key = "#id")
+	@Query(value = "update customer_order set status = :#{#status.ordinal()}, version = version + 1 "
+			+ "where id = :id and status = :#{#expectedStatus.ordinal()} returning *", nativeQuery = true)
+	Optional<Order> updateStatus(@Param("id") Long id, @Param("expectedStatus") Status expectedStatus, @Param("status") Status status);
+
+	/**
+	 * Same as updateStatus(), only if the order also still has the expected version ("... and version=?"). Used when the client
+	 * sends the ETag of the order it read in an "If-Match" header (see OrderController.changeStatus()).
+	 */
+	@Transactional
+	@CacheEvict(cacheNames = EntityCacheConfig.ORDERS, key = "#id")
+	@Query(value = "update customer_order set status = :#{#status.ordinal()}, version = version + 1 "
+			+ "where id = :id and status = :#{#expectedStatus.ordinal()} and version = :expectedVersion returning *",
+			nativeQuery = true)
+	Optional<Order> updateStatus(@Param("id") Long id, @Param("expectedStatus") Status expectedStatus, @Param("status") Status status,
+			@Param("expectedVersion") Long expectedVersion);
 }
@@ -0,0 +1,70 @@
+package tutorial.springboot.rest_application;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Number of orders of each status, kept in memory so that "/orders/stats" never has to count the rows of the table.<br/>
+ * <br/>
+ * The counters are read from the data base once, when the application is ready (after CommandLineRunners such as LoadDatabase
+ * stored their orders). Then OrderController updates them each time it creates an order or changes its status.<br/>
+ * <br/>
+ * One AtomicLong per status is enough : concurrent requests modify them without locks. The map itself is filled once in the
+ * constructor and never modified, so it can be read by all threads. A status change updates two counters one after the other,
+ * so a reader may briefly see the order counted in both, or none, of them.
+ */
+@Component
+public class OrderStatusCounters {
+
+	private final OrderRepository repository;
+	private final Map<Status, AtomicLong> counters = new EnumMap<>(Status.class);
+
+	OrderStatusCounters(OrderRepository repository) {
+		this.repository = repository;
+		for (Status status : Status.values()) {
+			counters.put(status, new AtomicLong());
+		}
+	}
+
+	/**
+	 * @EventListener makes Spring call this method when an ApplicationReadyEvent is published, once the application started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		Map<Status, Long> counts = new EnumMap<>(Status.class);
+		for (Object[] row : repository.countByStatus()) {
+			counts.put((Status) row[0], (Long) row[1]);
+		}
+
+		counters.forEach((status, counter) -> counter.set(counts.getOrDefault(status, 0L)));
+	}
+
+	/**
+	 * Count new orders of the given status.
+	 */
+	public void add(Status status, long count) {
+		counters.get(status).addAndGet(count);
+	}
+
+	/**
+	 * Count an order whose status changed.
+	 */
+	public void move(Status from, Status to) {
+		counters.get(from).decrementAndGet();
+		counters.get(to).incrementAndGet();
+	}
+
+	/**
+	 * Current number of orders of each status.
+	 */
+	public Map<Status, Long> snapshot() {
+		Map<Status, Long> snapshot = new EnumMap<>(Status.class);
+		counters.forEach((status, counter) -> snapshot.put(status, counter.get()));
+		return snapshot;
+	}
+}
@@ -0,0 +1,67 @@
+package tutorial.springboot.restful;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Give a unique id to each Greeting, without making all threads fight for the same counter.<br/>
+ * <br/>
+ * With a single AtomicLong, every request increments the same memory location. When many cores do it at the same time, each
+ * increment has to take the location from the other cores' caches, and the more cores there are, the longer they wait.<br/>
+ * <br/>
+ * Here, ids are given by stripes, about one per core : each stripe takes a block of ids from the shared counter (for example ids
+ * 65 to 128), and then gives ids from its block. The shared counter is only incremented once per block. A thread always uses the
+ * same stripe, chosen by its id, so that threads running on different cores rarely touch the same stripe. Stripes are not tied to
+ * threads, as a ThreadLocal would be : a thread that stops, such as the virtual thread of a request (see VirtualThreadsConfig),
+ * leaves no unused block behind.<br/>
+ * - Ids are unique : blocks are aligned on the block size, and a stripe only gives ids of the block it took.<br/>
+ * - Ids are roughly increasing : each thread's ids increase, but a thread may give id 70 after another one gave id 130. Only
+ * 		when two threads of a stripe take a new block at the same time, one of the blocks is lost.<br/>
+ * - With one thread, ids are 1, 2, 3... as with the AtomicLong.
+ */
+public class GreetingIdAllocator {
+
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
+	// Each stripe uses one long every 16 (128 bytes) : stripes are on different cache lines, so cores updating their own stripe do
+	// not take each other's cache lines.
+	private static final int PADDING = 16;
+
+	private final AtomicLong lastAllocatedId = new AtomicLong();
+	private final int blockSize;
+	private final int stripeMask;
+	// For each stripe, the last id it gave. A multiple of the block size means that its block is used up (or not taken yet).
+	private final AtomicLongArray stripes;
+
+	public GreetingIdAllocator() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	public GreetingIdAllocator(int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be positive, but was " + blockSize);
+		}
+		this.blockSize = blockSize;
+		int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+		this.stripeMask = stripeCount - 1;
+		this.stripes = new AtomicLongArray(stripeCount * PADDING);
+	}
+
+	public long nextId() {
+		int stripe = ((int) Thread.currentThread().getId() & stripeMask) * PADDING;
+		while (true) {
+			long last = stripes.get(stripe);
+			if (last % blockSize != 0) {
+				if (stripes.compareAndSet(stripe, last, last + 1)) {
+					return last + 1;
+				}
+			} else {
+				// Blocks start after a multiple of the block size, as the counter is only incremented by the block size.
+				long start = lastAllocatedId.getAndAdd(blockSize) + 1;
+				if (stripes.compareAndSet(stripe, last, start)) {
+					return start;
+				}
+			}
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package tutorial.springboot.restful;
 
-import java.util.concurrent.atomic.AtomicLong;
-
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,10 +7,10 @@ import org.springframework.context.annotation.Configuration;
 public class RestfulBeansProvider {
 
 	/**
-	 * This annotated method provide to Spring beans of "AtomicLong" type.
+	 * This annotated method provide to Spring beans of "GreetingIdAllocator" type.
 	 */
 	@Bean
-	public AtomicLong getAtomicLong() {
-		return new AtomicLong();
+	public GreetingIdAllocator getGreetingIdAllocator() {
+		return new GreetingIdAllocator();
 	}
 }
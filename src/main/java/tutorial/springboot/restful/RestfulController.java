@@ -1,7 +1,5 @@
 package tutorial.springboot.restful;
 
-import java.util.concurrent.atomic.AtomicLong;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -21,15 +19,15 @@ public class RestfulController {
 
 	/**
 	 * @Autowired marks this field as to be autowired by Spring's dependency injection facilities. When a "RestfulController"
-	 * object will be created, Spring will see it required an "AtomicLong" object. Spring will look into it's context for a bean of this 
-	 * type, found that RestfulBeansProvider.getAtomicLong() provide it (thank to the various annotations), and inject it into the
+	 * object will be created, Spring will see it required a "GreetingIdAllocator" object. Spring will look into it's context for a bean of this 
+	 * type, found that RestfulBeansProvider.getGreetingIdAllocator() provide it (thank to the various annotations), and inject it into the
 	 * newly instanced RestfulController object.<br/>
 	 * <br/>
 	 * Beware : if we annotate a variable with @Autowired, but no bean provider is found for the corresponding type by Spring in its 
 	 * context, a build failure will be launch at application start up.
 	 */
 	@Autowired
-	private AtomicLong atomicLong;
+	private GreetingIdAllocator idAllocator;
 	
 	/**
 	 * Service that will :<br/>
@@ -47,6 +45,6 @@ public class RestfulController {
 	 */
 	@GetMapping("/greeting")
 	public Greeting greeting(@RequestParam(value = "name", defaultValue = "World") String name) {
-		return new Greeting(atomicLong.incrementAndGet(), String.format("Hello, %s!", name));
+		return new Greeting(idAllocator.nextId(), String.format("Hello, %s!", name));
 	}
 }
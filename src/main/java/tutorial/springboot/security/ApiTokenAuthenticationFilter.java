@@ -0,0 +1,60 @@
+package tutorial.springboot.security;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authenticate the requests of the API filter chain (see WebSecurityConfig) by their "Authorization: Bearer &lt;token&gt;"
+ * header, checked by ApiTokens.<br/>
+ * <br/>
+ * Requests without this header go on unauthenticated, and are rejected later by the chain's authorization rules. Requests with an
+ * invalid token are rejected at once.<br/>
+ * <br/>
+ * This filter is not a bean : Spring Boot would add it to every request, out of Spring Security's chains.
+ */
+public class ApiTokenAuthenticationFilter extends OncePerRequestFilter {
+
+	private static final String BEARER = "Bearer ";
+
+	private final ApiTokens apiTokens;
+	private final AuthenticationEntryPoint entryPoint;
+
+	public ApiTokenAuthenticationFilter(ApiTokens apiTokens, AuthenticationEntryPoint entryPoint) {
+		this.apiTokens = apiTokens;
+		this.entryPoint = entryPoint;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		Authentication authentication = apiTokens.authenticate(header.substring(BEARER.length()).trim());
+		if (authentication == null) {
+			SecurityContextHolder.clearContext();
+			entryPoint.commence(request, response, new BadCredentialsException("Invalid or expired bearer token"));
+			return;
+		}
+
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(authentication);
+		SecurityContextHolder.setContext(context);
+		filterChain.doFilter(request, response);
+	}
+}
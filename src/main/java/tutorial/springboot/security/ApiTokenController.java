@@ -0,0 +1,42 @@
+package tutorial.springboot.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Give bearer tokens of the JSON API to its clients (see ApiTokens).<br/>
+ * <br/>
+ * "/api/token" is served by its own filter chain (see WebSecurityConfig) : clients send their user name and password once, with
+ * HTTP basic authentication, then the returned token with each API request :
+ * <pre>
+ * curl -u user:password -X POST http://localhost:8080/api/token
+ * curl -H "Authorization: Bearer &lt;access_token&gt;" http://localhost:8080/employees
+ * </pre>
+ */
+@RestController
+public class ApiTokenController {
+
+	private final ApiTokens apiTokens;
+	private final ApiTokenProperties properties;
+
+	public ApiTokenController(ApiTokens apiTokens, ApiTokenProperties properties) {
+		this.apiTokens = apiTokens;
+		this.properties = properties;
+	}
+
+	/**
+	 * The response follows OAuth 2's one (RFC 6749, section 5.1), which API clients usually know how to read.
+	 */
+	@PostMapping("/api/token")
+	public Map<String, Object> token(Authentication authentication) {
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("access_token", apiTokens.issue(authentication));
+		response.put("token_type", "Bearer");
+		response.put("expires_in", properties.getValidity().toSeconds());
+		return response;
+	}
+}
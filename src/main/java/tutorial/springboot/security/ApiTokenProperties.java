@@ -0,0 +1,41 @@
+package tutorial.springboot.security;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the bearer tokens of the JSON API, read from "api-token.*" entries of application.properties. It is registered by
+ * @EnableConfigurationProperties in ApiTokens.
+ */
+@ConfigurationProperties(prefix = "api-token")
+public class ApiTokenProperties {
+
+	/**
+	 * Base64 encoded key signing the tokens, at least 32 bytes long. All the nodes serving the API must share it, so that a token
+	 * issued by one node is accepted by the others. When empty, a random key is generated at startup : tokens are then only
+	 * accepted by the node that issued them, until it restarts.
+	 */
+	private String secret;
+
+	/**
+	 * How long a token is accepted after it has been issued.
+	 */
+	private Duration validity = Duration.ofHours(1);
+
+	public String getSecret() {
+		return secret;
+	}
+
+	public void setSecret(String secret) {
+		this.secret = secret;
+	}
+
+	public Duration getValidity() {
+		return validity;
+	}
+
+	public void setValidity(Duration validity) {
+		this.validity = validity;
+	}
+}
@@ -0,0 +1,125 @@
+package tutorial.springboot.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Issue and check the bearer tokens of the JSON API.<br/>
+ * <br/>
+ * A token carries everything needed to authenticate its user : "&lt;payload&gt;.&lt;signature&gt;", both Base64url encoded, the
+ * payload being "&lt;expiration epoch second&gt;:&lt;authorities separated by commas&gt;:&lt;user name&gt;" and the signature
+ * its HMAC-SHA256 with the secret key (see ApiTokenProperties). Only the holder of the key can make a token with a valid
+ * signature, so checking a token is a few microseconds of computation : no session to keep, no UserDetailsService to query, and
+ * any node sharing the key accepts it.<br/>
+ * <br/>
+ * The counterpart is that a token can not be revoked : it is accepted until it expires, even if the user's roles change meanwhile.
+ * Hence the short validity.
+ */
+@Component
+@EnableConfigurationProperties(ApiTokenProperties.class)
+public class ApiTokens {
+
+	private static final Logger log = LoggerFactory.getLogger(ApiTokens.class);
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final ApiTokenProperties properties;
+
+	/**
+	 * Initialized with the key. A Mac is not thread-safe : each signature is computed by a clone of this one.
+	 */
+	private final Mac mac;
+
+	public ApiTokens(ApiTokenProperties properties) throws GeneralSecurityException {
+		this.properties = properties;
+
+		byte[] key;
+		if (StringUtils.hasText(properties.getSecret())) {
+			key = Base64.getDecoder().decode(properties.getSecret().trim());
+			if (key.length < 32) {
+				throw new IllegalArgumentException("api-token.secret must be at least 32 bytes long, it has " + key.length);
+			}
+		} else {
+			key = new byte[32];
+			new SecureRandom().nextBytes(key);
+			log.warn("api-token.secret is not set : a random key is used, API tokens will only be accepted by this instance until it "
+					+ "restarts");
+		}
+		mac = Mac.getInstance(ALGORITHM);
+		mac.init(new SecretKeySpec(key, ALGORITHM));
+	}
+
+	/**
+	 * Issue a token for the given authenticated user, valid for api-token.validity.
+	 */
+	public String issue(Authentication authentication) {
+		String authorities = authentication.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.collect(Collectors.joining(","));
+		long expiration = Instant.now().plus(properties.getValidity()).getEpochSecond();
+		String payload = ENCODER.encodeToString(
+				(expiration + ":" + authorities + ":" + authentication.getName()).getBytes(StandardCharsets.UTF_8));
+
+		return payload + "." + ENCODER.encodeToString(sign(payload));
+	}
+
+	/**
+	 * Check the token and return the authentication it carries, or null if it is malformed, forged or expired.
+	 */
+	public Authentication authenticate(String token) {
+		int dot = token.indexOf('.');
+		if (dot <= 0) {
+			return null;
+		}
+		String payload = token.substring(0, dot);
+		try {
+			if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(dot + 1)))) {
+				return null;
+			}
+			String[] fields = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":", 3);
+			if (fields.length != 3 || Long.parseLong(fields[0]) <= Instant.now().getEpochSecond()) {
+				return null;
+			}
+
+			List<GrantedAuthority> authorities = new ArrayList<>();
+			for (String authority : StringUtils.commaDelimitedListToStringArray(fields[1])) {
+				authorities.add(new SimpleGrantedAuthority(authority));
+			}
+			return new UsernamePasswordAuthenticationToken(fields[2], null, authorities);
+		} catch (IllegalArgumentException e) {
+			// Not Base64, or not a number.
+			return null;
+		}
+	}
+
+	private byte[] sign(String payload) {
+		try {
+			return ((Mac) mac.clone()).doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(ALGORITHM + " can not be cloned", e);
+		}
+	}
+}
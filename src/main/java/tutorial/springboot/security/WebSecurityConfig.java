@@ -1,37 +1,166 @@
 package tutorial.springboot.security;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
 
 /**
  * Security configuration that ensures only authenticated users can see some pages. If Spring Security is on the classpath, 
  * Spring Boot automatically secures all HTTP endpoints with “basic” authentication.<br/>
  * <br/>
- * It is annotated with @EnableWebSecurity to enable Spring Security’s web security support and provide the Spring MVC integration.
+ * It is annotated with @EnableWebSecurity to enable Spring Security’s web security support and provide the Spring MVC integration.<br/>
+ * <br/>
+ * There are several SecurityFilterChain beans : each request is handled by the first chain, in @Order, whose paths match it. Public
+ * pages go through no filter at all (see publicSecurityFilterChain()), the public JSON endpoints through a few ones (see 
+ * publicApiSecurityFilterChain()), the JSON API is authenticated by bearer tokens without any session (see 
+ * apiSecurityFilterChain()), and the rest by the login form.<br/>
+ * <br/>
+ * SecurityFilterChainBenchmark measures what each chain costs per request.
  */
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig {
 
+	/**
+	 * Paths that anyone may see, and that neither read nor write any user's data : the default page, static resources, and pages
+	 * without forms.
+	 */
+	private static final String[] PUBLIC_PATHS = { "/", "/index.html", "/favicon.ico", "/hello", "/bye", "/web_greeting" };
+
+	/**
+	 * JSON endpoints that anyone may call.
+	 */
+	private static final String[] PUBLIC_API_PATHS = { "/greeting", "/actuator/health/**" };
+
+	/**
+	 * Paths of the JSON API, served to clients authenticated by bearer tokens. "/sqlite_person*" only matches a single path segment, 
+	 * hence the "/**" after it. "/admin/**" is only for users having the "ADMIN" role.
+	 */
+	private static final String[] API_PATHS = { "/employees/**", "/orders/**", "/sqlite_person*/**", "/async/**", "/admin/**" };
+
+	/**
+	 * Answer "401 Unauthorized" to API requests without a valid token, instead of redirecting them to the login page.
+	 */
+	private static final AuthenticationEntryPoint BEARER_ENTRY_POINT = (request, response, exception) -> {
+		response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+		response.setStatus(HttpStatus.UNAUTHORIZED.value());
+	};
+
+	/**
+	 * An empty chain : requests to PUBLIC_PATHS skip Spring Security, as if it was not there. Authorizing them with permitAll() in
+	 * the login form's chain would give the same responses, but only after its dozen filters have run, looking for a session, a 
+	 * CSRF token, a saved request, and so on.
+	 */
+	@Bean
+	@Order(0)
+	public SecurityFilterChain publicSecurityFilterChain() {
+		return new DefaultSecurityFilterChain(new OrRequestMatcher(Arrays.stream(PUBLIC_PATHS)
+				.map(AntPathRequestMatcher::new)
+				.collect(Collectors.toList())));
+	}
+
+	/**
+	 * The chain of PUBLIC_API_PATHS, keeping only what such responses need : the security headers (HeaderWriterFilter) and the 
+	 * authorization of anyone. No session is read nor created, and all the other filters are removed.
+	 */
+	@Bean
+	@Order(1)
+	public SecurityFilterChain publicApiSecurityFilterChain(HttpSecurity http) throws Exception {
+		http
+			.requestMatchers((matchers) -> matchers.antMatchers(PUBLIC_API_PATHS))
+			.authorizeHttpRequests((requests) -> requests.anyRequest().permitAll())
+			.securityContext((context) -> context.securityContextRepository(new NullSecurityContextRepository()))
+			.sessionManagement((session) -> session.disable())
+			.csrf((csrf) -> csrf.disable())
+			.requestCache((cache) -> cache.disable())
+			.anonymous((anonymous) -> anonymous.disable())
+			.exceptionHandling((exceptions) -> exceptions.disable())
+			.servletApi((servletApi) -> servletApi.disable())
+			.logout((logout) -> logout.disable());
+
+		return http.build();
+	}
+
+	/**
+	 * The chain of the JSON API. Each request is authenticated by its own "Authorization: Bearer" header, checked in memory by
+	 * ApiTokens :
+	 * <ul>
+	 * <li>STATELESS : no HttpSession is created nor read, so any node can serve any request and the server keeps nothing per client.</li>
+	 * <li>CSRF protection is disabled : it defends against browsers sending session cookies on their own, and this chain ignores
+	 * cookies. A forged request can not carry the token.</li>
+	 * </ul>
+	 */
+	@Bean
+	@Order(2)
+	public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http, ApiTokens apiTokens) throws Exception {
+		http
+			.requestMatchers((matchers) -> matchers.antMatchers(API_PATHS))
+			.authorizeHttpRequests((requests) -> requests
+				.antMatchers("/admin/**").hasRole("ADMIN")
+				.anyRequest().authenticated()
+			)
+			.sessionManagement((session) -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+			.csrf((csrf) -> csrf.disable())
+			.exceptionHandling((exceptions) -> exceptions.authenticationEntryPoint(BEARER_ENTRY_POINT))
+			.addFilterBefore(new ApiTokenAuthenticationFilter(apiTokens, BEARER_ENTRY_POINT), UsernamePasswordAuthenticationFilter.class);
+
+		return http.build();
+	}
+
+	/**
+	 * The chain of "/api/token" (see ApiTokenController) : the user name and password are checked once by the UserDetailsService, 
+	 * with HTTP basic authentication, and exchanged for a token. Stateless and without CSRF protection too.
+	 */
+	@Bean
+	@Order(3)
+	public SecurityFilterChain apiTokenSecurityFilterChain(HttpSecurity http) throws Exception {
+		http
+			.requestMatchers((matchers) -> matchers.antMatchers("/api/token"))
+			.authorizeHttpRequests((requests) -> requests.anyRequest().authenticated())
+			.sessionManagement((session) -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+			.csrf((csrf) -> csrf.disable())
+			.httpBasic((basic) -> basic.realmName("api"));
+
+		return http.build();
+	}
+
 	/**
 	 * The SecurityFilterChain bean defines which URL paths should be secured and which should not. Specifically, the /security_home path 
 	 * is configured to not require any authentication. All other paths must be authenticated.<br/>
 	 * <br/>
 	 * When a user successfully logs in, they are redirected to the previously requested page that required authentication. There is a custom 
-	 * /security_login page (which is specified by loginPage()), and everyone is allowed to view it.
+	 * /security_login page (which is specified by loginPage()), and everyone is allowed to view it.<br/>
+	 * <br/>
+	 * Being the last chain, it handles all the requests not matched by the chains above. Among them, the actuator's endpoints other
+	 * than "health" (whose chain comes first) are only for users having the "ADMIN" role : "sql" shows every SQL statement, and
+	 * "caches" can clear the entity caches.
 	 */
 	@Bean
+	@Order(4)
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		http
 			.authorizeHttpRequests((requests) -> requests
 				.antMatchers("/security_home").permitAll()
+				.antMatchers("/actuator/**").hasRole("ADMIN")
 				.anyRequest().authenticated()
 			)
 			.formLogin((form) -> form
@@ -51,8 +180,9 @@ public class WebSecurityConfig {
 	 */
 	@SuppressWarnings("deprecation")
 	/**
-	 * The UserDetailsService bean sets up an in-memory user store with a single user. That user is given a user name of "user", 
-	 * a password of "password", and a role of "USER".
+	 * The UserDetailsService bean sets up an in-memory user store with two users. The first one is given a user name of "user", 
+	 * a password of "password", and a role of "USER". The second one, "admin" (password "admin"), also has the "ADMIN" role, needed 
+	 * by "/admin/**" (see BulkLoadController).
 	 */
 	@Bean
 	public UserDetailsService userDetailsService() {
@@ -62,7 +192,13 @@ public class WebSecurityConfig {
 				.password("password")
 				.roles("USER")
 				.build();
+		UserDetails admin =
+			 User.withDefaultPasswordEncoder()
+				.username("admin")
+				.password("admin")
+				.roles("USER", "ADMIN")
+				.build();
 
-		return new InMemoryUserDetailsManager(user);
+		return new InMemoryUserDetailsManager(user, admin);
 	}
 }
@@ -0,0 +1,79 @@
+package tutorial.springboot.serving_web_content;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import tutorial.springboot.rest_application.Employee;
+import tutorial.springboot.rest_application.EmployeeRepository;
+import tutorial.springboot.sqlite.Person;
+import tutorial.springboot.sqlite.PersonRepository;
+import tutorial.springboot.streaming.ChunkedTemplateRenderer;
+
+/**
+ * HTML directories of employees ("/directory/employees") and persons ("/directory/persons"), listing whole tables.<br/>
+ * <br/>
+ * Unlike ServingWebContentController, methods do not return a view name : they render the
+ * "src/main/resources/templates/serving_web_content/directory.html" template themselves, through ChunkedTemplateRenderer, so that
+ * the page is sent while the table is read. Watch ChunkedTemplateRenderer for more details.
+ */
+@Controller
+public class DirectoryController {
+
+	private final EmployeeRepository employeeRepository;
+	private final PersonRepository personRepository;
+	private final ChunkedTemplateRenderer renderer;
+
+	DirectoryController(EmployeeRepository employeeRepository, PersonRepository personRepository, ChunkedTemplateRenderer renderer) {
+		this.employeeRepository = employeeRepository;
+		this.personRepository = personRepository;
+		this.renderer = renderer;
+	}
+
+	@GetMapping("/directory/employees")
+	public void employees(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		renderer.render(request, response, "serving_web_content/directory", Map.of("title", "Employees", "detail", "Role"),
+				employeeRepository::streamAllByOrderByIdAsc,
+				(Employee employee) -> new DirectoryRow(employee.getId(), employee.getName(), employee.getRole()));
+	}
+
+	@GetMapping("/directory/persons")
+	public void persons(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		renderer.render(request, response, "serving_web_content/directory", Map.of("title", "Persons", "detail", "Message"),
+				personRepository::streamAllByOrderByIdAsc,
+				(Person person) -> new DirectoryRow(person.getId(), person.getName(), person.getMessage()));
+	}
+
+	/**
+	 * One line of a directory. Templates read its values through its getters.
+	 */
+	public static final class DirectoryRow {
+
+		private final Long id;
+		private final String name;
+		private final String detail;
+
+		DirectoryRow(Long id, String name, String detail) {
+			this.id = id;
+			this.name = name;
+			this.detail = detail;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getDetail() {
+			return detail;
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package tutorial.springboot.sqlite;
 
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -14,14 +18,17 @@ public class FillSqliteTables {
 
   private static final Logger log = LoggerFactory.getLogger(FillSqliteTables.class);
 
+  /**
+   * Rows that already exist are not inserted again, the other ones are inserted in one batch. Watch LoadDatabase for more details.
+   */
   @Bean
   CommandLineRunner initSqlite(PersonRepository personRepository) {
 
     return args -> {
-    	log.info("Preloading " + personRepository.save(new Person("Andrew", "He likes cakes.")));
-    	log.info("Preloading " + personRepository.save(new Person("Garfield", "Meoooow.")));
-    	
-    	personRepository.findAll().forEach(employee -> log.info("Preloaded " + employee));
+    	List<Person> persons = Stream.of(new Person("Andrew", "He likes cakes."), new Person("Garfield", "Meoooow."))
+    			.filter(person -> !personRepository.existsByName(person.getName()))
+    			.collect(Collectors.toList());
+    	personRepository.saveAll(persons).forEach(person -> log.info("Preloaded " + person));
     };
   }
-}
\ No newline at end of file
+}
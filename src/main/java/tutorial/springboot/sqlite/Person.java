@@ -1,19 +1,27 @@
 package tutorial.springboot.sqlite;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+import tutorial.springboot.etag.TableVersionListener;
  
 /**
  * Represent a "Person" table into database.<br/>
- * The table is automatically created at startup because of "spring.jpa.hibernate.ddl-auto=update" into "application.properties".
+ * The table is automatically created at startup because of "spring.jpa.hibernate.ddl-auto=update" into "application.properties".<br/>
+ * Ids are allocated by blocks of 50 : watch Employee for more explanations about @SequenceGenerator.<br/>
+ * @EntityListeners lets TableVersionListener know each modification of the table, for the ETag of "/sqlite_persons".
  */
 @Entity
+@EntityListeners(TableVersionListener.class)
 public class Person {
  
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_id")
+    @SequenceGenerator(name = "person_id", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
  
     private String name;
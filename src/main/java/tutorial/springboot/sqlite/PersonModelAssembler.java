@@ -3,16 +3,36 @@ package tutorial.springboot.sqlite;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import tutorial.springboot.hateoas.LinkTemplate;
+
 @Component
 public class PersonModelAssembler implements RepresentationModelAssembler<Person, EntityModel<Person>> {
 
+	private final LinkTemplate one = LinkTemplate.of(methodOn(SqliteController.class).one(null));
+	private final LinkTemplate all = LinkTemplate.of(methodOn(SqliteController.class).all(null, null, null));
+
 	@Override
 	public EntityModel<Person> toModel(Person person) {
+		return toModel(person, LinkTemplate.currentBaseUri());
+	}
+
+	/**
+	 * Thread independent version of toModel(Person). Watch EmployeeModelAssembler for more details.
+	 */
+	public EntityModel<Person> toModel(Person person, String baseUri) {
 		return EntityModel.of(person, //
-					linkTo(methodOn(SqliteController.class).one(person.getId())).withSelfRel(),
-					linkTo(methodOn(SqliteController.class).all()).withRel("employees"));
+					Link.of(selfHref(person.getId(), baseUri)),
+					Link.of(all.href(baseUri), "employees"));
+	}
+
+	/**
+	 * Href of the self link of the person whose id is provided (for example "http://localhost:8080/sqlite_person/1").
+	 */
+	public String selfHref(Long id, String baseUri) {
+		return one.href(baseUri, id);
 	}
-}
\ No newline at end of file
+}
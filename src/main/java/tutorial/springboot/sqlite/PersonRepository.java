@@ -1,7 +1,58 @@
 package tutorial.springboot.sqlite;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import tutorial.springboot.cache.EntityCacheConfig;
+import tutorial.springboot.streaming.NdjsonStreamer;
 
 public interface PersonRepository extends JpaRepository<Person, Long> {
 
+	/**
+	 * Keyset pagination's query. Watch EmployeeRepository for more explanations.
+	 */
+	List<Person> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+	/**
+	 * Whether a person of this name exists. Watch EmployeeRepository.existsByFirstNameAndLastName() for more explanations.
+	 */
+	boolean existsByName(String name);
+
+	/**
+	 * Cursor-based reading of the whole table, for exports. Watch EmployeeRepository for more explanations.
+	 */
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = NdjsonStreamer.FETCH_SIZE),
+				  @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	Stream<Person> streamAllByOrderByIdAsc();
+
+	/**
+	 * Read a person by id through the "persons" cache. Watch EmployeeRepository for more explanations.
+	 */
+	@Cacheable(cacheNames = EntityCacheConfig.PERSONS, unless = "#result == null")
+	@Transactional(readOnly = true)
+	Optional<Person> findCachedById(Long id);
+
+	/**
+	 * Save a person, and then remove it from the cache.
+	 */
+	@Override
+	@CacheEvict(cacheNames = EntityCacheConfig.PERSONS, key = "#result.id")
+	<S extends Person> S save(S entity);
+
+	/**
+	 * Delete a person, and then remove it from the cache.
+	 */
+	@Override
+	@CacheEvict(EntityCacheConfig.PERSONS)
+	void deleteById(Long id);
 }
@@ -6,6 +6,8 @@ import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.function.SQLFunctionTemplate;
 import org.hibernate.dialect.function.StandardSQLFunction;
 import org.hibernate.dialect.function.VarArgsSQLFunction;
+import org.hibernate.type.BooleanType;
+import org.hibernate.type.DoubleType;
 import org.hibernate.type.StringType;
 
 /**
@@ -43,6 +45,10 @@ public class SQLDialect  extends Dialect {
         registerFunction("mod", new SQLFunctionTemplate(StringType.INSTANCE, "?1 % ?2"));
         registerFunction("substr", new StandardSQLFunction("substr", StringType.INSTANCE));
         registerFunction("substring", new StandardSQLFunction("substr", StringType.INSTANCE));
+        // SQLite's FTS5 full-text search functions (see EmployeeSearchIndex), so that HQL/JPQL queries can use them too : 
+        // "match(x, :query) = true" is rendered as "(x match ?) = 1", and "bm25(x)" as is.
+        registerFunction("match", new SQLFunctionTemplate(BooleanType.INSTANCE, "(?1 match ?2)"));
+        registerFunction("bm25", new VarArgsSQLFunction(DoubleType.INSTANCE, "bm25(", ",", ")"));
     }
 	
 	 public boolean supportsIdentityColumns() {
@@ -66,10 +72,22 @@ public class SQLDialect  extends Dialect {
          return true;
      }
   
+     /**
+      * SQLite's syntax is "limit <max rows> offset <first row>". Used by keyset pagination (see KeysetPageRequest), that only
+      * needs " limit ?" because it filters on ids instead of skipping rows.
+      */
      protected String getLimitString(String query, boolean hasOffset) {
-         return new StringBuffer(query.length() + 20).append(query).append(hasOffset ? " limit ? offset ?" : " limit ?")
+         return new StringBuilder(query.length() + 20).append(query).append(hasOffset ? " limit ? offset ?" : " limit ?")
                  .toString();
      }
+
+     /**
+      * By default, Hibernate binds the first row before the max rows. As SQLite expects the max rows first (see getLimitString()),
+      * without this the two values would be swapped as soon as an offset is used.
+      */
+     public boolean bindLimitParametersInReverseOrder() {
+         return true;
+     }
   
      public boolean supportsTemporaryTables() {
          return true;
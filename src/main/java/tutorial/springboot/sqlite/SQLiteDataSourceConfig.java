@@ -0,0 +1,107 @@
+package tutorial.springboot.sqlite;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.Pragma;
+
+import com.zaxxer.hikari.HikariDataSource;
+import tutorial.springboot.metrics.SqlStatistics;
+
+/**
+ * Replace the DataSource that Spring Boot would create from "spring.datasource.*" properties by one suited to SQLite.<br/>
+ * <br/>
+ * SQLite allows only one writer at a time for the whole data base file. With the default pool of 10 connections, concurrent 
+ * POST/PUT/DELETE requests fight for the lock, and fail with SQLITE_BUSY errors. In the default "rollback journal" mode, readers 
+ * also wait for writers to finish. So here :<br/>
+ * - The data base is switched to WAL (Write-Ahead Logging) mode : writes are appended to a separate "-wal" file, and readers keep 
+ * 		reading the last committed state while a write is in progress.<br/>
+ * - A writer pool of ONE connection serves all the transactions that may write. Writers wait for it in the pool, in Java, instead 
+ * 		of failing on SQLite's lock.<br/>
+ * - A reader pool of read-only connections serves read-only transactions, in parallel.<br/>
+ * - PRAGMAs from SQLiteProperties are applied to every connection when it is opened.<br/>
+ * <br/>
+ * LazyConnectionDataSourceProxy only takes a real connection when the first SQL statement is sent. This lets SQLiteRoutingDataSource 
+ * know whether the transaction is read-only, and also lets Hibernate reserve a block of ids (with its own connection) when entities 
+ * are persisted, before the transaction takes the writer connection. This is why entities must be created with persist(), never 
+ * with a merge() that would read the data base first (see EmployeeController.newEmployee()).<br/>
+ * <br/>
+ * As soon as a DataSource bean is declared, Spring Boot does not create its own. @Primary marks the one to use when several 
+ * DataSource beans exist : the pools are beans too, so that Spring closes them on shutdown and the actuator shows their health.<br/>
+ * <br/>
+ * The statements sent through this DataSource (by Hibernate, JdbcTemplate...) are measured by SqlStatistics, which wraps it.
+ */
+@Configuration
+@EnableConfigurationProperties(SQLiteProperties.class)
+public class SQLiteDataSourceConfig {
+
+	@Bean
+	@Primary
+	public DataSource dataSource(HikariDataSource sqliteWriterPool, HikariDataSource sqliteReaderPool, SqlStatistics sqlStatistics) {
+		DataSource routing = new SQLiteRoutingDataSource(sqliteWriterPool, sqliteReaderPool);
+		return sqlStatistics.wrap(new LazyConnectionDataSourceProxy(routing));
+	}
+
+	@Bean
+	public HikariDataSource sqliteWriterPool(DataSourceProperties dataSourceProperties, SQLiteProperties sqlite) {
+		SQLiteConfig config = connectionConfig(sqlite);
+		config.setJournalMode(JournalMode.WAL);
+
+		return pool("sqlite-writer", 1, dataSourceProperties, config);
+	}
+
+	/**
+	 * The writer is opened once before the readers : it creates the data base file if needed and switches it to WAL mode (which 
+	 * is stored in the file). Read-only connections can do neither.
+	 */
+	@Bean
+	public HikariDataSource sqliteReaderPool(DataSourceProperties dataSourceProperties, SQLiteProperties sqlite, 
+			HikariDataSource sqliteWriterPool) throws SQLException {
+		try (Connection connection = sqliteWriterPool.getConnection()) {
+			// Nothing to do : opening the connection applied its PRAGMAs.
+		}
+
+		SQLiteConfig config = connectionConfig(sqlite);
+		config.setReadOnly(true);
+
+		HikariDataSource pool = pool("sqlite-reader", sqlite.getReaderPoolSize(), dataSourceProperties, config);
+		// Otherwise Hikari would try to make the connections writable, which SQLite refuses once they are opened.
+		pool.setReadOnly(true);
+		return pool;
+	}
+
+	private static SQLiteConfig connectionConfig(SQLiteProperties sqlite) {
+		SQLiteConfig config = new SQLiteConfig();
+		config.setSynchronous(sqlite.getSynchronous());
+		// A negative cache_size is a number of KiB, a positive one a number of pages.
+		config.setCacheSize((int) -sqlite.getCacheSize().toKilobytes());
+		config.setPragma(Pragma.MMAP_SIZE, String.valueOf(sqlite.getMmapSize().toBytes()));
+		config.setBusyTimeout((int) sqlite.getBusyTimeout().toMillis());
+		return config;
+	}
+
+	/**
+	 * SQLite's JDBC driver reads PRAGMAs from the properties given when a connection is opened : SQLiteConfig.toProperties() 
+	 * builds them, and Hikari gives them to the driver for each new connection.
+	 */
+	private static HikariDataSource pool(String name, int size, DataSourceProperties dataSourceProperties, SQLiteConfig config) {
+		HikariDataSource pool = new HikariDataSource();
+		pool.setPoolName(name);
+		pool.setJdbcUrl(dataSourceProperties.determineUrl());
+		pool.setDriverClassName(dataSourceProperties.determineDriverClassName());
+		pool.setMaximumPoolSize(size);
+		pool.setMinimumIdle(size);
+		pool.setDataSourceProperties(config.toProperties());
+		return pool;
+	}
+}
@@ -0,0 +1,87 @@
+package tutorial.springboot.sqlite;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+
+/**
+ * Settings of the SQLite connections, read from "sqlite.*" entries of application.properties.<br/>
+ * <br/>
+ * @ConfigurationProperties asks Spring Boot to fill this object with the properties starting with the given prefix, converting 
+ * values to the fields' types : "sqlite.busy-timeout = 5s" becomes a Duration, "sqlite.mmap-size = 256MB" a DataSize, and so on. 
+ * It is registered by @EnableConfigurationProperties in SQLiteDataSourceConfig.<br/>
+ * <br/>
+ * Each value is applied as a PRAGMA to every connection opened by SQLiteDataSourceConfig.
+ */
+@ConfigurationProperties(prefix = "sqlite")
+public class SQLiteProperties {
+
+	/**
+	 * Number of read-only connections. Thanks to WAL mode, they read while the writer writes.
+	 */
+	private int readerPoolSize = 4;
+
+	/**
+	 * "PRAGMA synchronous". In WAL mode, NORMAL only syncs the disk at checkpoints : a power loss may lose the last transactions, 
+	 * but never corrupts the data base.
+	 */
+	private SynchronousMode synchronous = SynchronousMode.NORMAL;
+
+	/**
+	 * "PRAGMA cache_size", the size of the page cache of each connection.
+	 */
+	private DataSize cacheSize = DataSize.ofMegabytes(16);
+
+	/**
+	 * "PRAGMA mmap_size", how much of the data base file is read through memory-mapped I/O instead of read() calls. 0 disables it.
+	 */
+	private DataSize mmapSize = DataSize.ofMegabytes(256);
+
+	/**
+	 * "PRAGMA busy_timeout", how long a connection waits for a lock held by another one (or another process) before failing with 
+	 * SQLITE_BUSY.
+	 */
+	private Duration busyTimeout = Duration.ofSeconds(5);
+
+	public int getReaderPoolSize() {
+		return readerPoolSize;
+	}
+
+	public void setReaderPoolSize(int readerPoolSize) {
+		this.readerPoolSize = readerPoolSize;
+	}
+
+	public SynchronousMode getSynchronous() {
+		return synchronous;
+	}
+
+	public void setSynchronous(SynchronousMode synchronous) {
+		this.synchronous = synchronous;
+	}
+
+	public DataSize getCacheSize() {
+		return cacheSize;
+	}
+
+	public void setCacheSize(DataSize cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	public DataSize getMmapSize() {
+		return mmapSize;
+	}
+
+	public void setMmapSize(DataSize mmapSize) {
+		this.mmapSize = mmapSize;
+	}
+
+	public Duration getBusyTimeout() {
+		return busyTimeout;
+	}
+
+	public void setBusyTimeout(Duration busyTimeout) {
+		this.busyTimeout = busyTimeout;
+	}
+}
@@ -0,0 +1,33 @@
+package tutorial.springboot.sqlite;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource giving connections of the reader pool to read-only transactions ( @Transactional(readOnly = true), as used by Spring 
+ * Data's find methods), and the connection of the writer pool to everything else.<br/>
+ * <br/>
+ * AbstractRoutingDataSource calls determineCurrentLookupKey() each time a connection is asked, and uses the returned key to 
+ * choose the target DataSource. Spring only knows whether the current transaction is read-only once the transaction has started, 
+ * so this DataSource must be wrapped into a LazyConnectionDataSourceProxy : see SQLiteDataSourceConfig.
+ */
+public class SQLiteRoutingDataSource extends AbstractRoutingDataSource {
+
+	private static final String WRITER = "writer";
+	private static final String READER = "reader";
+
+	SQLiteRoutingDataSource(DataSource writer, DataSource reader) {
+		setTargetDataSources(Map.of(WRITER, writer, READER, reader));
+		setDefaultTargetDataSource(writer);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? READER : WRITER;
+	}
+}
@@ -3,53 +3,135 @@ package tutorial.springboot.sqlite;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import tutorial.springboot.batch.BatchInserter;
+import tutorial.springboot.batch.BatchResult;
+import tutorial.springboot.etag.TableVersions;
+import tutorial.springboot.hateoas.LinkTemplate;
+import tutorial.springboot.pagination.KeysetPageRequest;
+import tutorial.springboot.streaming.NdjsonStreamer;
+import tutorial.springboot.threads.DatabaseExecutor;
 
 @RestController
 public class SqliteController {
 	
 	private final PersonRepository repository;
 	private final PersonModelAssembler assembler;
+	private final NdjsonStreamer streamer;
+	private final BatchInserter batchInserter;
+	private final DatabaseExecutor databaseExecutor;
+	private final TableVersions tableVersions;
 	
-	SqliteController(PersonRepository repository, PersonModelAssembler assembler) {
+	SqliteController(PersonRepository repository, PersonModelAssembler assembler, NdjsonStreamer streamer,
+			BatchInserter batchInserter, DatabaseExecutor databaseExecutor, TableVersions tableVersions) {
 		    this.repository = repository;
 		    this.assembler = assembler;
+		    this.streamer = streamer;
+		    this.batchInserter = batchInserter;
+		    this.databaseExecutor = databaseExecutor;
+		    this.tableVersions = tableVersions;
 	}
 	
+    /**
+     * Keyset paginated list of persons ("/sqlite_persons?after=<id>&size=N"). Watch EmployeeController.all() for more details, 
+     * also on the ETag of the response.
+     */
     @GetMapping("/sqlite_persons")
-    CollectionModel<EntityModel<Person>> all() {
-	    List<EntityModel<Person>> persons = repository.findAll()
-			  										  .stream()
-													  .map(assembler::toModel)
-													  .collect(Collectors.toList());
+    CollectionModel<EntityModel<Person>> all(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer size,
+    		WebRequest request) {
+	    if (request != null && request.checkNotModified(tableVersions.etag(Person.class))) {
+		    return null;
+	    }
+	    
+	    return page(after, size).get();
+    }
 
-	    return CollectionModel.of(persons, linkTo(methodOn(SqliteController.class).all()).withSelfRel());
+    /**
+     * The work of all(), with its links resolved on the request's thread. Watch EmployeeController.page() for more details.
+     */
+    private Supplier<CollectionModel<EntityModel<Person>>> page(Long after, Integer size) {
+	    KeysetPageRequest page = KeysetPageRequest.of(after, size);
+	    String baseUri = LinkTemplate.currentBaseUri();
+	    Link self = linkTo(methodOn(SqliteController.class).all(after, size, null)).withSelfRel().expand();
+	    Link next = linkTo(methodOn(SqliteController.class).all(null, null, null)).withRel(IanaLinkRelations.NEXT);
+
+	    return () -> page.toCollectionModel(repository.findByIdGreaterThanOrderByIdAsc(page.getAfter(), page.toPageable()),
+	    							  row -> assembler.toModel(row, baseUri),
+	    							  Person::getId,
+	    							  self,
+	    							  lastId -> next.expand(lastId, page.getSize()));
+    }
+    
+    /**
+     * Export every person as NDJSON. Watch EmployeeController.export() for more details.
+     */
+    @GetMapping(value = "/sqlite_persons/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    void export(HttpServletResponse response) throws IOException {
+	    streamer.write(response, repository::streamAllByOrderByIdAsc);
     }
     
     @PostMapping("/sqlite_persons")
     ResponseEntity<?> newPerson(@RequestBody Person newPerson) {
-  	  EntityModel<Person> entityModel = assembler.toModel(repository.save(newPerson));
+  	  return create(newPerson).get();
+    }
+
+    /**
+     * The work of newPerson(), with the base URI of its links read on the request's thread. Watch EmployeeController.page() for why.
+     */
+    private Supplier<ResponseEntity<?>> create(Person newPerson) {
+  	  String baseUri = LinkTemplate.currentBaseUri();
+
+  	  return () -> {
+  		  // Watch EmployeeController.newEmployee() for why the provided id is ignored.
+  		  newPerson.setId(null);
+  		  EntityModel<Person> entityModel = assembler.toModel(repository.save(newPerson), baseUri);
+
+  		  return ResponseEntity
+  			      .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+  			      .body(entityModel);
+  	  };
+    }
+    
+    /**
+     * Create all the persons of the JSON array provided as body. Watch EmployeeController.newEmployees() for more details.
+     */
+    @PostMapping("/sqlite_persons/batch")
+    ResponseEntity<BatchResult> newPersons(InputStream body) {
+  	  List<Long> ids = batchInserter.insert(body, Person.class, person -> person.setId(null), Person::getId);
   	  
+  	  String baseUri = LinkTemplate.currentBaseUri();
   	  return ResponseEntity
-  		      .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
-  		      .body(entityModel);
+  		      .status(HttpStatus.CREATED)
+  		      .body(new BatchResult(ids, id -> assembler.selfHref(id, baseUri)));
     }
     
 	@GetMapping("/sqlite_person/{id}")
 	EntityModel<Person> one(@PathVariable Long id) {
-		Person person = repository.findById(id)
+		// Cached read. newPerson() and deletePerson() remove the person from the cache (watch EmployeeController.one()).
+		Person person = repository.findCachedById(id)
 								.orElseThrow(() -> new PersonNotFoundException(id));
 		
 		return assembler.toModel(person);
@@ -61,4 +143,31 @@ public class SqliteController {
 	  
 	    return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Asynchronous version of all(). Watch EmployeeController.allAsync() for more details.
+     */
+    @GetMapping("/async/sqlite_persons")
+    CompletableFuture<CollectionModel<EntityModel<Person>>> allAsync(@RequestParam(required = false) Long after,
+    		@RequestParam(required = false) Integer size) {
+	    return databaseExecutor.supply(page(after, size));
+    }
+    
+	/**
+	 * Asynchronous version of one(). Watch EmployeeController.allAsync() for more details.
+	 */
+	@GetMapping("/async/sqlite_person/{id}")
+	CompletableFuture<EntityModel<Person>> oneAsync(@PathVariable Long id) {
+		String baseUri = LinkTemplate.currentBaseUri();
+		return databaseExecutor.supply(() -> assembler.toModel(repository.findCachedById(id)
+																.orElseThrow(() -> new PersonNotFoundException(id)), baseUri));
+	}
+    
+    /**
+     * Asynchronous version of newPerson(). Watch EmployeeController.allAsync() for more details.
+     */
+    @PostMapping("/async/sqlite_persons")
+    CompletableFuture<ResponseEntity<?>> newPersonAsync(@RequestBody Person newPerson) {
+  	  return databaseExecutor.supply(create(newPerson));
+    }
 }
@@ -0,0 +1,101 @@
+package tutorial.springboot.startup;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import tutorial.springboot.SpringbootApplication;
+
+/**
+ * Training run of the "cds" maven profile (see pom.xml) : the application is started on a temporary data base file, called as
+ * its clients would, then stopped.<br/>
+ * <br/>
+ * The JVM running it is started with "-XX:ArchiveClassesAtExit" : when it exits, every class it loaded from the application's jars
+ * is written, already parsed and verified, into a "class data sharing" (AppCDS) archive. Started with "-XX:SharedArchiveFile" on
+ * this archive, the next JVMs map those classes from it instead of loading them one by one from the jars, which is most of the
+ * startup time of a Spring Boot application.<br/>
+ * <br/>
+ * Only loaded classes are archived : the requests below make Spring MVC, Spring Security, Hibernate (reads and writes), Spring
+ * HATEOAS (the assemblers' links), Jackson and Thymeleaf (the pages) load the classes they need for a request, not only those
+ * they need to start.
+ */
+public class CdsTraining {
+
+	private static final Logger log = LoggerFactory.getLogger(CdsTraining.class);
+	private static final Pattern ACCESS_TOKEN = Pattern.compile("\"access_token\":\"([^\"]+)\"");
+
+	public static void main(String[] args) throws Exception {
+		File dataBase = Files.createTempFile("springboot-cds", ".db").toFile();
+		String[] arguments = Arrays.copyOf(args, args.length + 2);
+		arguments[args.length] = "--spring.datasource.url=jdbc:sqlite:" + dataBase.getAbsolutePath();
+		arguments[args.length + 1] = "--server.port=0";
+		ConfigurableApplicationContext context = new SpringApplication(SpringbootApplication.class).run(arguments);
+
+		int exitCode;
+		try {
+			train("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+		} finally {
+			exitCode = SpringApplication.exit(context);
+			dataBase.delete();
+			new File(dataBase.getAbsolutePath() + "-wal").delete();
+			new File(dataBase.getAbsolutePath() + "-shm").delete();
+		}
+		// The archive is written when the JVM exits : do not wait for threads that would outlive the context.
+		System.exit(exitCode);
+	}
+
+	private static void train(String baseUri) throws Exception {
+		HttpClient client = HttpClient.newHttpClient();
+		String credentials = Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+		String tokenResponse = send(client, HttpRequest.newBuilder(URI.create(baseUri + "/api/token"))
+				.header("Authorization", "Basic " + credentials)
+				.POST(BodyPublishers.noBody()));
+		Matcher matcher = ACCESS_TOKEN.matcher(tokenResponse);
+		if (!matcher.find()) {
+			throw new IllegalStateException("No token found in " + tokenResponse);
+		}
+		String authorization = "Bearer " + matcher.group(1);
+
+		for (String path : new String[] { "/employees", "/orders" }) {
+			String collection = send(client, HttpRequest.newBuilder(URI.create(baseUri + path)).header("Authorization", authorization));
+			// The first item's own link.
+			Matcher item = Pattern.compile("\"href\":\"([^\"]*" + path + "/\\d+)\"").matcher(collection);
+			if (item.find()) {
+				send(client, HttpRequest.newBuilder(URI.create(item.group(1))).header("Authorization", authorization));
+			}
+		}
+		for (String path : new String[] { "/employees/search?q=bag", "/sqlite_persons", "/sqlite_person/1" }) {
+			send(client, HttpRequest.newBuilder(URI.create(baseUri + path)).header("Authorization", authorization));
+		}
+		send(client, HttpRequest.newBuilder(URI.create(baseUri + "/employees"))
+				.header("Authorization", authorization)
+				.header("Content-Type", "application/json")
+				.POST(BodyPublishers.ofString("{\"firstName\":\"Samwise\",\"lastName\":\"Gamgee\",\"role\":\"gardener\"}")));
+
+		for (String path : new String[] { "/", "/hello", "/greeting", "/web_greeting", "/security_login", "/actuator/health" }) {
+			send(client, HttpRequest.newBuilder(URI.create(baseUri + path)));
+		}
+	}
+
+	private static String send(HttpClient client, HttpRequest.Builder request) throws Exception {
+		HttpResponse<String> response = client.send(request.build(), BodyHandlers.ofString());
+		log.info("Training request {} {} : {}", response.request().method(), response.uri().getPath(), response.statusCode());
+		return response.body();
+	}
+}
@@ -0,0 +1,63 @@
+package tutorial.springboot.startup;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationStartupAware;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * Record the run of each CommandLineRunner and ApplicationRunner bean as a "tutorial.startup.runner" startup step, tagged with the
+ * bean's name. Spring records the creation of each bean itself, but not the runners, that run once the context is refreshed.<br/>
+ * <br/>
+ * A BeanPostProcessor may replace each bean once it is created : runners are replaced by a proxy, whose run() method is timed
+ * before calling the runner's own. The proxy is a subclass of the runner's class (a CGLIB proxy), so that the bean keeps its type
+ * (getBean(BulkLoadRunner.class) still finds it) and its @Order or Ordered order, which Spring Boot sorts runners by. Runners
+ * that can not be subclassed, such as the lambdas of @Bean methods, get a proxy of their interfaces instead. A runner that already
+ * is a Spring proxy (@Transactional...) is not proxied again : the timing is added to its own advices.<br/>
+ * <br/>
+ * Steps are only kept when the application was started with a BufferingApplicationStartup (see SpringbootApplication.main()).
+ */
+public class RunnerStartupSteps implements BeanPostProcessor, ApplicationStartupAware {
+
+	static final String STEP = "tutorial.startup.runner";
+
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (!(bean instanceof CommandLineRunner) && !(bean instanceof ApplicationRunner)) {
+			return bean;
+		}
+
+		MethodInterceptor timing = invocation -> {
+			if (!invocation.getMethod().getName().equals("run") || invocation.getArguments().length != 1) {
+				return invocation.proceed();
+			}
+			StartupStep step = applicationStartup.start(STEP).tag("beanName", beanName);
+			try {
+				return invocation.proceed();
+			} finally {
+				step.end();
+			}
+		};
+
+		if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+			((Advised) bean).addAdvice(0, timing);
+			return bean;
+		}
+		ProxyFactory proxyFactory = new ProxyFactory(bean);
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvice(timing);
+		return proxyFactory.getProxy();
+	}
+}
@@ -0,0 +1,49 @@
+package tutorial.springboot.startup;
+
+import javax.servlet.Filter;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Startup of the application.<br/>
+ * <br/>
+ * Started with the "fast-startup" profile (see application-fast-startup.properties), the application creates its beans lazily
+ * ("spring.main.lazy-initialization") : a bean is only created when another one, or a request, first needs it. Web beans are still
+ * created at startup, so that the first requests are not slower than the others : they are excluded by webBeans().<br/>
+ * <br/>
+ * In any mode, the steps of the startup are recorded (see SpringbootApplication.main() and RunnerStartupSteps), and published on
+ * "/actuator/startup" : the time spent creating each bean, running each runner...
+ */
+@Configuration
+public class StartupConfig {
+
+	/**
+	 * Beans created at startup even when beans are lazily created : controllers, their advices and interceptors, servlet filters
+	 * and Spring Security's chains, and what configures Spring MVC. Beans they need are created with them.<br/>
+	 * <br/>
+	 * "static" methods create their bean without creating the @Configuration object, which is useful for beans that are used while
+	 * the other beans are being defined.
+	 */
+	@Bean
+	static LazyInitializationExcludeFilter webBeans() {
+		return (beanName, beanDefinition, beanType) -> AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+				|| AnnotatedElementUtils.hasAnnotation(beanType, ControllerAdvice.class)
+				|| Filter.class.isAssignableFrom(beanType)
+				|| HandlerInterceptor.class.isAssignableFrom(beanType)
+				|| WebMvcConfigurer.class.isAssignableFrom(beanType)
+				|| SecurityFilterChain.class.isAssignableFrom(beanType);
+	}
+
+	@Bean
+	static RunnerStartupSteps runnerStartupSteps() {
+		return new RunnerStartupSteps();
+	}
+}
@@ -0,0 +1,116 @@
+package tutorial.springboot.streaming;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring5.ISpringTemplateEngine;
+
+/**
+ * Render a Thymeleaf template listing a whole table, sending the page to the browser while the table is read.<br/>
+ * <br/>
+ * A controller returning a view name (see ServingWebContentController) fills the Model first, and the template is rendered once 
+ * the controller returned : with a List of all rows, the browser receives nothing until every row was read, and memory grows with 
+ * the table. Here instead, as NdjsonStreamer does for JSON :<br/>
+ * - The template is processed by this class, inside a read-only transaction in which the repository's Stream (a JDBC cursor) 
+ * 		stays open.<br/>
+ * - Thymeleaf's "th:each" iterates the "rows" variable lazily : it asks the Iterator for a row, renders it, then asks for the 
+ * 		next one. Each row is converted to a small view object and detached from the EntityManager as soon as it is read.<br/>
+ * - Thymeleaf writes directly to the response's Writer. Every CHUNK_SIZE rows (and before the first one, once the top of the 
+ * 		page is rendered), the Writer is flushed : Tomcat sends what was rendered so far as a chunk ("Transfer-Encoding: chunked"), 
+ * 		and the browser displays it.<br/>
+ * <br/>
+ * The first bytes are sent as soon as the query started, and memory only holds the rows of a JDBC fetch, whatever the size of the 
+ * table. As with NdjsonStreamer, an error while rows are read can not change the status anymore : the page is cut.
+ */
+@Component
+public class ChunkedTemplateRenderer {
+
+	/**
+	 * Number of rows rendered between two flushes.
+	 */
+	public static final int CHUNK_SIZE = 200;
+
+	private final ISpringTemplateEngine templateEngine;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTransaction;
+
+	ChunkedTemplateRenderer(ISpringTemplateEngine templateEngine, EntityManager entityManager,
+			PlatformTransactionManager transactionManager) {
+		this.templateEngine = templateEngine;
+		this.entityManager = entityManager;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * Render the template, with the given variables and a "rows" variable iterating over the rows of the stream.
+	 * 
+	 * @param template Name of the template, as returned by controllers (for example "serving_web_content/directory").
+	 * @param variables Other variables of the template.
+	 * @param rows Give the stream of rows to display (typically a repository method reference).
+	 * @param toView Convert each row into the object given to the template.
+	 */
+	public <T, V> void render(HttpServletRequest request, HttpServletResponse response, String template, Map<String, Object> variables,
+			Supplier<Stream<T>> rows, Function<T, V> toView) throws IOException {
+		response.setContentType(MediaType.TEXT_HTML_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		PrintWriter writer = response.getWriter();
+
+		readOnlyTransaction.executeWithoutResult(status -> {
+			try (Stream<T> stream = rows.get()) {
+				WebContext context = new WebContext(request, response, request.getServletContext(), request.getLocale(), variables);
+				context.setVariable("rows", new FlushingIterator<>(stream.iterator(), row -> {
+					V view = toView.apply(row);
+					entityManager.detach(row);
+					return view;
+				}, writer));
+				templateEngine.process(template, context, writer);
+			}
+		});
+		writer.flush();
+	}
+
+	/**
+	 * Iterator converting rows, and flushing the Writer every CHUNK_SIZE rows.
+	 */
+	private static final class FlushingIterator<T, V> implements Iterator<V> {
+
+		private final Iterator<T> rows;
+		private final Function<T, V> toView;
+		private final PrintWriter writer;
+		private long count;
+
+		private FlushingIterator(Iterator<T> rows, Function<T, V> toView, PrintWriter writer) {
+			this.rows = rows;
+			this.toView = toView;
+			this.writer = writer;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return rows.hasNext();
+		}
+
+		@Override
+		public V next() {
+			if (count++ % CHUNK_SIZE == 0) {
+				writer.flush();
+			}
+			return toView.apply(rows.next());
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package tutorial.springboot.streaming;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an export can't be written to the response (most of the time because the client closed the connection).
+ */
+@SuppressWarnings("serial")
+public class ExportException extends RuntimeException {
+
+  ExportException(IOException cause) {
+    super("Could not write export", cause);
+  }
+}
@@ -0,0 +1,86 @@
+package tutorial.springboot.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write whole tables to an HTTP response as NDJSON ("newline delimited JSON" : one JSON object per line), without ever keeping 
+ * them in memory.<br/>
+ * <br/>
+ * A classic controller method returning a List (or a CollectionModel) first reads every row, then converts them all into model 
+ * objects, then serializes the whole body : memory grows with the table. Here instead :<br/>
+ * - Rows are read from a java.util.stream.Stream returned by the repository. Behind it, Hibernate uses a forward-only JDBC cursor 
+ * 		that reads rows from the data base by groups of FETCH_SIZE.<br/>
+ * - Each row is immediately written to the response with a Jackson JsonGenerator, then detached from the EntityManager, so 
+ * 		Hibernate does not keep a reference to it.<br/>
+ * - As the response's length is unknown, Tomcat sends it with "Transfer-Encoding: chunked" while it is being written.<br/>
+ * <br/>
+ * A Stream returned by a repository must be read inside a transaction and closed after use (hence the try-with-resources).
+ */
+@Component
+public class NdjsonStreamer {
+
+	/**
+	 * Number of rows read by the JDBC driver in one go. Used in repositories' @QueryHints, that require a constant.
+	 */
+	public static final String FETCH_SIZE = "500";
+
+	private final ObjectMapper objectMapper;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTransaction;
+
+	NdjsonStreamer(ObjectMapper objectMapper, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+		this.objectMapper = objectMapper;
+		this.entityManager = entityManager;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * Write each row provided by "rows" as a line of the response.
+	 * 
+	 * @param response The response to write into.
+	 * @param rows Give the stream of rows to export (typically a repository method reference).
+	 */
+	public <T> void write(HttpServletResponse response, Supplier<Stream<T>> rows) throws IOException {
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		OutputStream out = response.getOutputStream();
+
+		readOnlyTransaction.executeWithoutResult(status -> {
+			try (Stream<T> stream = rows.get(); 
+					JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+				// By default, Jackson separates root values with a space. We want a new line after each of them instead.
+				generator.setRootValueSeparator(null);
+				stream.forEach(row -> {
+					writeLine(generator, row);
+					entityManager.detach(row);
+				});
+			} catch (IOException e) {
+				throw new ExportException(e);
+			}
+		});
+	}
+
+	private void writeLine(JsonGenerator generator, Object row) {
+		try {
+			generator.writeObject(row);
+			generator.writeRaw('\n');
+		} catch (IOException e) {
+			throw new ExportException(e);
+		}
+	}
+}
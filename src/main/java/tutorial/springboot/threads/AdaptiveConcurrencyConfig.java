@@ -0,0 +1,26 @@
+package tutorial.springboot.threads;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Apply AdaptiveConcurrencyLimiter to the paths of controllers using repositories : the JSON API and the HTML directories. It
+ * runs after ClientRateLimiter (order 0), so that a throttled client does not take a place.
+ */
+@Configuration
+public class AdaptiveConcurrencyConfig implements WebMvcConfigurer {
+
+	private final AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
+
+	AdaptiveConcurrencyConfig(AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter) {
+		this.adaptiveConcurrencyLimiter = adaptiveConcurrencyLimiter;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(adaptiveConcurrencyLimiter)
+				.addPathPatterns("/employees/**", "/orders/**", "/sqlite_person*/**", "/async/**", "/directory/**")
+				.order(1);
+	}
+}
@@ -0,0 +1,133 @@
+package tutorial.springboot.threads;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limit the number of requests using the data base at once, with a limit adapted to the data base's latency (see VegasLimit).
+ * Reading and writing requests have their own limit, as they use different SQLite connections.<br/>
+ * <br/>
+ * Requests over the limit are refused at once with a ConcurrencyLimitExceededException (503 status) : when SQLite slows down,
+ * the limit shrinks, and the excess requests are shed instead of piling up in Tomcat, making everyone's response slow. Unlike
+ * JdbcBulkhead, that makes repository calls wait for a fixed number of permits, nothing waits here.<br/>
+ * <br/>
+ * The latency is the data base's one : JdbcBulkhead measures each repository call (including its wait for a permit) with
+ * recordDatabaseTime(), and the mean time of the request's calls is the sample given to VegasLimit. Requests that did not call a
+ * repository (answered from the cache, "304 Not Modified"...) give no sample. A request answered with a 503 status (JdbcBulkhead
+ * or DatabaseExecutor full) shrinks the limit at once.<br/>
+ * <br/>
+ * This is a Spring MVC HandlerInterceptor : the request is counted in by preHandle() and out by afterCompletion(). Asynchronous
+ * requests ("/async/...") keep their place until their result is written : afterCompletion() is only called after the second,
+ * "ASYNC" dispatch. AdaptiveConcurrencyConfig chooses the paths it applies to.<br/>
+ * <br/>
+ * Metrics, with a "kind" tag ("read" or "write") : "concurrency.limit" (the current limit), "concurrency.inflight" (the number of
+ * requests counted in), and "concurrency.rejected" (the number of refused requests).
+ */
+@Component
+@EnableConfigurationProperties(AdaptiveConcurrencyProperties.class)
+public class AdaptiveConcurrencyLimiter implements AsyncHandlerInterceptor {
+
+	private static final String PERMIT = AdaptiveConcurrencyLimiter.class.getName() + ".permit";
+
+	private final boolean enabled;
+	private final VegasLimit reads;
+	private final VegasLimit writes;
+	private final Counter rejectedReads;
+	private final Counter rejectedWrites;
+
+	AdaptiveConcurrencyLimiter(AdaptiveConcurrencyProperties properties, MeterRegistry meterRegistry) {
+		this.enabled = properties.isEnabled();
+		this.reads = limit(properties.getRead(), "read", meterRegistry);
+		this.writes = limit(properties.getWrite(), "write", meterRegistry);
+		this.rejectedReads = meterRegistry.counter("concurrency.rejected", "kind", "read");
+		this.rejectedWrites = meterRegistry.counter("concurrency.rejected", "kind", "write");
+	}
+
+	private static VegasLimit limit(AdaptiveConcurrencyProperties.Limits limits, String kind, MeterRegistry meterRegistry) {
+		VegasLimit limit = new VegasLimit(limits.getInitialLimit(), limits.getMinLimit(), limits.getMaxLimit());
+		Gauge.builder("concurrency.limit", limit, VegasLimit::getLimit).tag("kind", kind).register(meterRegistry);
+		Gauge.builder("concurrency.inflight", limit, VegasLimit::getInflight).tag("kind", kind).register(meterRegistry);
+		return limit;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!enabled || (request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute(PERMIT) != null)) {
+			return true;
+		}
+
+		boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+		VegasLimit limit = read ? reads : writes;
+		int inflightBefore = limit.tryAcquire();
+		if (inflightBefore < 0) {
+			(read ? rejectedReads : rejectedWrites).increment();
+			throw new ConcurrencyLimitExceededException(read ? "reading" : "writing", limit.getLimit());
+		}
+
+		request.setAttribute(PERMIT, new Permit(limit, inflightBefore));
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		Permit permit = (Permit) request.getAttribute(PERMIT);
+		if (permit == null) {
+			return;
+		}
+		request.removeAttribute(PERMIT);
+		permit.limit.release();
+
+		if (response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+			permit.limit.onDrop();
+		} else if (permit.databaseCalls.get() > 0) {
+			permit.limit.onSample(permit.databaseNanos.get() / permit.databaseCalls.get(), permit.inflightBefore);
+		}
+	}
+
+	/**
+	 * Add the duration of a repository call to the current request's sample, if the request was counted in. Called by
+	 * JdbcBulkhead, also on DatabaseExecutor's threads, that see the request's attributes.
+	 */
+	static void recordDatabaseTime(long nanos) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes instanceof ServletRequestAttributes) {
+			// Not attributes.getAttribute() : once the first dispatch of an asynchronous request is over, it refuses to read the
+			// request, that is still in use.
+			Permit permit = (Permit) ((ServletRequestAttributes) attributes).getRequest().getAttribute(PERMIT);
+			if (permit != null) {
+				permit.databaseNanos.addAndGet(nanos);
+				permit.databaseCalls.incrementAndGet();
+			}
+		}
+	}
+
+	private static final class Permit {
+
+		private final VegasLimit limit;
+		private final int inflightBefore;
+		private final AtomicLong databaseNanos = new AtomicLong();
+		private final AtomicInteger databaseCalls = new AtomicInteger();
+
+		private Permit(VegasLimit limit, int inflightBefore) {
+			this.limit = limit;
+			this.inflightBefore = inflightBefore;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package tutorial.springboot.threads;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of AdaptiveConcurrencyLimiter, read from "adaptive-concurrency.*" properties. Watch SQLiteProperties for more details
+ * on @ConfigurationProperties.
+ */
+@ConfigurationProperties("adaptive-concurrency")
+public class AdaptiveConcurrencyProperties {
+
+	/**
+	 * Whether requests are limited at all.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Limits of reading requests (GET, HEAD), served by the reader connections.
+	 */
+	private final Limits read = new Limits(20, 2, 200);
+
+	/**
+	 * Limits of writing requests, all served by the single writer connection.
+	 */
+	private final Limits write = new Limits(5, 1, 50);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Limits getRead() {
+		return read;
+	}
+
+	public Limits getWrite() {
+		return write;
+	}
+
+	/**
+	 * Bounds of a VegasLimit.
+	 */
+	public static class Limits {
+
+		/**
+		 * Number of requests allowed at once at startup, before any latency was measured.
+		 */
+		private int initialLimit;
+
+		/**
+		 * The limit never goes below this number, even when the data base is very slow.
+		 */
+		private int minLimit;
+
+		/**
+		 * The limit never goes above this number, even when the data base is very fast.
+		 */
+		private int maxLimit;
+
+		Limits(int initialLimit, int minLimit, int maxLimit) {
+			this.initialLimit = initialLimit;
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+		}
+
+		public int getInitialLimit() {
+			return initialLimit;
+		}
+
+		public void setInitialLimit(int initialLimit) {
+			this.initialLimit = initialLimit;
+		}
+
+		public int getMinLimit() {
+			return minLimit;
+		}
+
+		public void setMinLimit(int minLimit) {
+			this.minLimit = minLimit;
+		}
+
+		public int getMaxLimit() {
+			return maxLimit;
+		}
+
+		public void setMaxLimit(int maxLimit) {
+			this.maxLimit = maxLimit;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package tutorial.springboot.threads;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Return a 503 (Service Unavailable) status with the exception's message when JdbcBulkhead refused a repository call. Watch 
+ * EmployeeNotFoundAdvice for more details.
+ */
+@ControllerAdvice
+public class BulkheadFullAdvice {
+
+	@ResponseBody
+	@ExceptionHandler(BulkheadFullException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	String bulkheadFullHandler(BulkheadFullException ex) {
+		return ex.getMessage();
+	}
+}
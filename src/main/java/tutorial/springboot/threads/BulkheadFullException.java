@@ -0,0 +1,12 @@
+package tutorial.springboot.threads;
+
+/**
+ * Thrown by JdbcBulkhead when a repository call waited too long for a permit.
+ */
+@SuppressWarnings("serial")
+public class BulkheadFullException extends RuntimeException {
+
+	BulkheadFullException(String call) {
+		super("Too many requests are using the data base, " + call + " was not run. Please retry later");
+	}
+}
@@ -0,0 +1,22 @@
+package tutorial.springboot.threads;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Return a 503 (Service Unavailable) status with the exception's message when AdaptiveConcurrencyLimiter refused a request, and
+ * a "Retry-After" header of one second : the limit adapts within a few requests. Watch EmployeeNotFoundAdvice for more details.
+ */
+@ControllerAdvice
+public class ConcurrencyLimitExceededAdvice {
+
+	@ExceptionHandler(ConcurrencyLimitExceededException.class)
+	ResponseEntity<String> concurrencyLimitExceededHandler(ConcurrencyLimitExceededException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
+}
@@ -0,0 +1,12 @@
+package tutorial.springboot.threads;
+
+/**
+ * Thrown by AdaptiveConcurrencyLimiter when as many requests as its current limit are already using the data base.
+ */
+@SuppressWarnings("serial")
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+	ConcurrencyLimitExceededException(String kind, int limit) {
+		super("The data base is busy, " + limit + " " + kind + " requests are already running. Please retry later");
+	}
+}
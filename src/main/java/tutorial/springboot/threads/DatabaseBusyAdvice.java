@@ -0,0 +1,22 @@
+package tutorial.springboot.threads;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Return a 503 (Service Unavailable) status with the exception's message when DatabaseExecutor refused or timed out a task. 
+ * Watch EmployeeNotFoundAdvice for more details.
+ */
+@ControllerAdvice
+public class DatabaseBusyAdvice {
+
+	@ResponseBody
+	@ExceptionHandler(DatabaseBusyException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	String databaseBusyHandler(DatabaseBusyException ex) {
+		return ex.getMessage();
+	}
+}
@@ -0,0 +1,12 @@
+package tutorial.springboot.threads;
+
+/**
+ * Thrown by DatabaseExecutor when a task was refused because its queue is full, or did not finish in time.
+ */
+@SuppressWarnings("serial")
+public class DatabaseBusyException extends RuntimeException {
+
+	DatabaseBusyException(String reason) {
+		super("The data base is busy (" + reason + "). Please retry later");
+	}
+}
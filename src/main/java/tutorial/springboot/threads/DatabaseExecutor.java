@@ -0,0 +1,125 @@
+package tutorial.springboot.threads;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Run data base work on a dedicated pool of threads, for the asynchronous endpoints ("/async/employees"...).<br/>
+ * <br/>
+ * A controller method returning a CompletableFuture lets Tomcat's thread go back to the pool at once : Spring MVC keeps the
+ * request open (Servlet "async" mode) and writes the response when the CompletableFuture completes. Meanwhile Tomcat's threads
+ * accept and serve other requests, even when SQLite is slow.<br/>
+ * <br/>
+ * The work itself runs here, on "database-executor.threads" threads :<br/>
+ * - Tasks wait in a queue of "database-executor.queue-capacity" tasks. When it is full, tasks are refused at once (503 status)
+ * 		instead of piling up.<br/>
+ * - A task not finished after "database-executor.timeout" completes with a 503 status. If it did not start yet, it is skipped.<br/>
+ * - The request's attributes (a thread-local) are made available to the task, so that HATEOAS links built by the task are
+ * 		absolute, as on Tomcat's threads.<br/>
+ * - Micrometer's ExecutorServiceMetrics publishes the pool's metrics, with the tag "name=database" : "executor.queued" (the
+ * 		queue's depth), "executor.queue.remaining", "executor.active", "executor.completed"... Refused and timed out tasks are
+ * 		counted by "database.executor.rejected" and "database.executor.timeouts".<br/>
+ * <br/>
+ * The pool is not declared as a bean : as soon as an Executor bean exists, Spring Boot does not create its default one
+ * ("applicationTaskExecutor"), used by Spring MVC for other asynchronous results.
+ */
+@Component
+@EnableConfigurationProperties(DatabaseExecutorProperties.class)
+public class DatabaseExecutor {
+
+	private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+	private final Duration timeout;
+	private final Counter rejected;
+	private final Counter timeouts;
+
+	DatabaseExecutor(DatabaseExecutorProperties properties, MeterRegistry meterRegistry) {
+		this.timeout = properties.getTimeout();
+
+		executor.setThreadNamePrefix("database-");
+		executor.setCorePoolSize(properties.getThreads());
+		executor.setMaxPoolSize(properties.getThreads());
+		executor.setQueueCapacity(properties.getQueueCapacity());
+		executor.setTaskDecorator(DatabaseExecutor::withRequestAttributes);
+		executor.initialize();
+
+		new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "database", Tags.empty()).bindTo(meterRegistry);
+		this.rejected = meterRegistry.counter("database.executor.rejected");
+		this.timeouts = meterRegistry.counter("database.executor.timeouts");
+	}
+
+	/**
+	 * Run the work on the pool. The returned CompletableFuture completes with the work's result, with the exception it threw,
+	 * or with a DatabaseBusyException if it was refused or timed out.
+	 */
+	public <T> CompletableFuture<T> supply(Supplier<T> work) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		try {
+			executor.execute(() -> {
+				if (result.isDone()) {
+					return; // Timed out while waiting in the queue.
+				}
+				try {
+					result.complete(work.get());
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (TaskRejectedException e) {
+			rejected.increment();
+			result.completeExceptionally(new DatabaseBusyException("too many requests are waiting"));
+			return result;
+		}
+
+		CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+			if (result.completeExceptionally(new DatabaseBusyException("no response within " + timeout.toMillis() + " ms"))) {
+				timeouts.increment();
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * TaskDecorator : wrap each task when it is submitted (still on the request's thread), to give it the request's attributes.
+	 */
+	private static Runnable withRequestAttributes(Runnable task) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+		return () -> {
+			RequestContextHolder.setRequestAttributes(attributes);
+			try {
+				task.run();
+			} finally {
+				RequestContextHolder.resetRequestAttributes();
+			}
+		};
+	}
+
+	/**
+	 * Number of tasks waiting for a thread.
+	 */
+	public int queueDepth() {
+		return executor.getThreadPoolExecutor().getQueue().size();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,52 @@
+package tutorial.springboot.threads;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of DatabaseExecutor, read from "database-executor.*" properties. Watch SQLiteProperties for more details on
+ * @ConfigurationProperties.
+ */
+@ConfigurationProperties("database-executor")
+public class DatabaseExecutorProperties {
+
+	/**
+	 * Number of threads running data base work. More threads than SQLite connections (see JdbcBulkhead) would only wait.
+	 */
+	private int threads = 5;
+
+	/**
+	 * Number of tasks waiting for a thread. When the queue is full, new tasks are refused with a 503 status.
+	 */
+	private int queueCapacity = 200;
+
+	/**
+	 * How long a task may wait and run before the request fails with a 503 status.
+	 */
+	private Duration timeout = Duration.ofSeconds(10);
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+}
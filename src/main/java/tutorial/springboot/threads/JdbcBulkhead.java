@@ -0,0 +1,67 @@
+package tutorial.springboot.threads;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limit the number of repository calls running at once, as a bulkhead : if SQLite slows down, only a few threads wait for it, and
+ * the others keep serving requests that do not need the data base.<br/>
+ * <br/>
+ * @Aspect declares code that Spring runs around other beans' methods, chosen by a "pointcut" expression. Here, @Around runs
+ * limit() instead of every method of every Spring Data repository ("Repository+" means Repository and its sub-interfaces), and
+ * limit() calls the real method with proceed() once it got a permit.<br/>
+ * <br/>
+ * The Semaphore gives its permits in the order they were asked ("fair"). Waiting for a permit does not pin a virtual thread (see
+ * VirtualThreadsConfig), while waiting inside SQLite's JDBC driver would. A call that waits longer than "jdbc-bulkhead.max-wait"
+ * fails with a BulkheadFullException (503 status).<br/>
+ * <br/>
+ * @Order(LOWEST_PRECEDENCE) runs this aspect after the cache, whose order is just before it (see EntityCacheConfig), so that
+ * cached entities are returned without waiting for a permit. A repository returning a Stream only holds its permit while the
+ * Stream is opened, not while it is read.<br/>
+ * <br/>
+ * The duration of each call, wait included, is the data base latency that AdaptiveConcurrencyLimiter adapts its limits to.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@EnableConfigurationProperties(JdbcBulkheadProperties.class)
+public class JdbcBulkhead {
+
+	private final Semaphore permits;
+	private final long maxWaitNanos;
+
+	JdbcBulkhead(JdbcBulkheadProperties properties) {
+		this.permits = new Semaphore(properties.getPermits(), true);
+		this.maxWaitNanos = properties.getMaxWait().toNanos();
+	}
+
+	@Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+	public Object limit(ProceedingJoinPoint call) throws Throwable {
+		long start = System.nanoTime();
+		if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+			throw new BulkheadFullException(call.getSignature().toShortString());
+		}
+
+		try {
+			return call.proceed();
+		} finally {
+			permits.release();
+			AdaptiveConcurrencyLimiter.recordDatabaseTime(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Number of permits currently available.
+	 */
+	public int availablePermits() {
+		return permits.availablePermits();
+	}
+}
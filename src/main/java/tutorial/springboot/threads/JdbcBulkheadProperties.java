@@ -0,0 +1,40 @@
+package tutorial.springboot.threads;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of JdbcBulkhead, read from "jdbc-bulkhead.*" properties. Watch SQLiteProperties for more details on
+ * @ConfigurationProperties.
+ */
+@ConfigurationProperties("jdbc-bulkhead")
+public class JdbcBulkheadProperties {
+
+	/**
+	 * Number of repository calls that may run at once. By default, as many as SQLite connections (one writer and four readers,
+	 * see SQLiteProperties) : more would only wait for a connection inside the pool.
+	 */
+	private int permits = 5;
+
+	/**
+	 * How long a repository call waits for a permit before failing with a 503 status.
+	 */
+	private Duration maxWait = Duration.ofSeconds(5);
+
+	public int getPermits() {
+		return permits;
+	}
+
+	public void setPermits(int permits) {
+		this.permits = permits;
+	}
+
+	public Duration getMaxWait() {
+		return maxWait;
+	}
+
+	public void setMaxWait(Duration maxWait) {
+		this.maxWait = maxWait;
+	}
+}
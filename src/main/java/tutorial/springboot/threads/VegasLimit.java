@@ -0,0 +1,119 @@
+package tutorial.springboot.threads;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A number of requests allowed to run at once, adapted to the latency of the data base as TCP Vegas adapts its congestion window.
+ * <br/>
+ * <br/>
+ * The lowest latency seen ("no load" latency) is what a request costs when it does not wait for others. When requests take
+ * longer, it is because they wait behind each other : with "limit" requests running, about limit * (1 - noLoad / latency) of them
+ * are queued. The limit grows while this queue is small, and shrinks when it is large :<br/>
+ * - queue &lt;= log10(limit) : limit + 6 * log10(limit), the data base is idle enough to grow fast.<br/>
+ * - queue &lt; 3 * log10(limit) : limit + log10(limit).<br/>
+ * - queue &gt; 6 * log10(limit) : limit - log10(limit).<br/>
+ * - When a request failed because the data base was too busy : limit * 0.9.<br/>
+ * <br/>
+ * As the no load latency may change (bigger tables, another disk...), it is measured again from time to time : the lowest latency
+ * is forgotten after about 30 * limit samples.<br/>
+ * <br/>
+ * tryAcquire() and release() only use an AtomicInteger ; samples update the limit under a lock, which is short compared to a data
+ * base call.
+ */
+final class VegasLimit {
+
+	private static final int PROBE_MULTIPLIER = 30;
+	private static final double DECREASE_FACTOR = 0.9;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final AtomicInteger inflight = new AtomicInteger();
+	private volatile int limit;
+
+	// Guarded by this.
+	private double estimatedLimit;
+	private long noLoadLatency = Long.MAX_VALUE;
+	private long samplesSinceProbe;
+
+	VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("Limits must be such as 1 <= min <= initial <= max, got " + minLimit + ", "
+					+ initialLimit + ", " + maxLimit);
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = initialLimit;
+		this.estimatedLimit = initialLimit;
+	}
+
+	/**
+	 * Count a request in if less than "limit" requests are running. Return the number of running requests before it, or -1 if
+	 * the request was refused.
+	 */
+	int tryAcquire() {
+		while (true) {
+			int current = inflight.get();
+			if (current >= limit) {
+				return -1;
+			}
+			if (inflight.compareAndSet(current, current + 1)) {
+				return current;
+			}
+		}
+	}
+
+	void release() {
+		inflight.decrementAndGet();
+	}
+
+	/**
+	 * Adapt the limit to the latency of a request, that found "inflightBefore" requests running when it started.
+	 */
+	synchronized void onSample(long latencyNanos, int inflightBefore) {
+		if (latencyNanos <= 0) {
+			return;
+		}
+		if (++samplesSinceProbe >= PROBE_MULTIPLIER * estimatedLimit) {
+			samplesSinceProbe = 0;
+			noLoadLatency = latencyNanos;
+		}
+		noLoadLatency = Math.min(noLoadLatency, latencyNanos);
+
+		// Few requests were running : the latency tells nothing about a bigger limit.
+		if (2 * (inflightBefore + 1) < estimatedLimit) {
+			return;
+		}
+
+		double queue = Math.ceil(estimatedLimit * (1 - (double) noLoadLatency / latencyNanos));
+		double step = Math.max(1, Math.log10(estimatedLimit));
+		if (queue <= step) {
+			estimatedLimit += 6 * step;
+		} else if (queue < 3 * step) {
+			estimatedLimit += step;
+		} else if (queue > 6 * step) {
+			estimatedLimit -= step;
+		}
+		update();
+	}
+
+	/**
+	 * A request failed because the data base was too busy.
+	 */
+	synchronized void onDrop() {
+		estimatedLimit *= DECREASE_FACTOR;
+		update();
+	}
+
+	private void update() {
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+		limit = (int) estimatedLimit;
+	}
+
+	int getLimit() {
+		return limit;
+	}
+
+	int getInflight() {
+		return inflight.get();
+	}
+}
@@ -0,0 +1,67 @@
+package tutorial.springboot.threads;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Opt-in mode running each HTTP request on its own virtual thread, instead of Tomcat's pool of 200 platform threads.<br/>
+ * <br/>
+ * A platform thread is an operating system thread : when a request waits for SQLite, its thread waits too. Once the 200 threads
+ * of Tomcat's pool are all waiting, no other request is served, even "/hello" that does not use the data base. A virtual thread
+ * is a lightweight thread managed by the JVM (JDK 21, or 19 and 20 with "--enable-preview") : while it waits, the JVM runs other
+ * virtual threads on the same operating system thread (called a carrier). Millions of them may exist at once.<br/>
+ * <br/>
+ * Enable it with "virtual-threads.enabled=true". @ConditionalOnProperty only declares this configuration's beans when the
+ * property is true.<br/>
+ * The project is compiled for a JDK without virtual threads, so Executors.newVirtualThreadPerTaskExecutor() is called by
+ * reflection. On a JDK without it, a warning is logged and Tomcat keeps its platform threads.<br/>
+ * <br/>
+ * A virtual thread that waits inside a "synchronized" block or a native method, as SQLite's JDBC driver does, keeps its carrier
+ * busy ("pinning"). JdbcBulkhead limits how many requests use the data base at once, so most requests wait on its semaphore,
+ * which releases the carrier, rather than inside the driver.
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+	/**
+	 * Spring Boot calls TomcatProtocolHandlerCustomizer beans when it creates Tomcat's connector. The protocol handler uses the
+	 * given executor to run requests instead of creating its own pool.
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+		ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+		return protocolHandler -> {
+			if (executor != null) {
+				protocolHandler.setExecutor(executor);
+			}
+		};
+	}
+
+	/**
+	 * Executor starting a new virtual thread for each task, or null if the JDK does not support virtual threads.
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			ExecutorService executor = (ExecutorService) factory.invoke(null);
+			log.info("Requests run on virtual threads");
+			return executor;
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			// NoSuchMethodException before JDK 19, UnsupportedOperationException (wrapped) without "--enable-preview" on JDK 19 and 20.
+			log.warn("virtual-threads.enabled is true, but this JDK ({}) does not support virtual threads : requests run on "
+					+ "platform threads", Runtime.version());
+			return null;
+		}
+	}
+}
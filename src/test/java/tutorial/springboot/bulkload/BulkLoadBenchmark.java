@@ -0,0 +1,69 @@
+package tutorial.springboot.bulkload;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import tutorial.springboot.SpringbootApplication;
+
+/**
+ * Load a CSV file of 1 million employees with BulkLoader, with one parser thread and with one per processor :<br/>
+ * - The application is started on a temporary data base file, without web server.<br/>
+ * - The file is written into a temporary directory, then loaded twice into new data bases, and the rows per second are printed.
+ * <br/>
+ * <br/>
+ * It is not a unit test (its name does not end with "Test", so Maven does not run it). Run it from the IDE, or with :<br/>
+ * mvn test-compile exec:java -Dexec.mainClass=tutorial.springboot.bulkload.BulkLoadBenchmark -Dexec.classpathScope=test
+ */
+public class BulkLoadBenchmark {
+
+	private static final int ROWS = 1_000_000;
+
+	public static void main(String[] args) throws Exception {
+		Path file = Files.createTempFile("employees", ".csv");
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			writer.write("id,firstName,lastName,role\n");
+			for (int i = 0; i < ROWS; i++) {
+				writer.write(i + ",First" + i + ",Last" + (i % 1000) + ",\"role, " + (i % 50) + "\"\n");
+			}
+		}
+		System.out.printf("JDK %s, %d processors, %d rows, %d MB%n", Runtime.version(), Runtime.getRuntime().availableProcessors(), ROWS,
+				Files.size(file) / 1024 / 1024);
+
+		try {
+			run(file, 1);
+			run(file, 0);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void run(Path file, int parserThreads) throws Exception {
+		File dataBase = Files.createTempFile("springboot-bulk-load", ".db").toFile();
+		ConfigurableApplicationContext context = new SpringApplication(SpringbootApplication.class).run(
+				"--spring.datasource.url=jdbc:sqlite:" + dataBase.getAbsolutePath(),
+				"--spring.main.web-application-type=none",
+				"--bulk-load.parser-threads=" + parserThreads,
+				"--logging.level.root=WARN",
+				"--logging.level.tutorial.springboot.bulkload=INFO",
+				"--startup.display-beans=false",
+				"--spring.main.banner-mode=off");
+
+		try {
+			BulkLoader loader = context.getBean(BulkLoader.class);
+			BulkLoadJob job = loader.newJob(BulkTable.EMPLOYEES, file);
+			loader.load(job);
+			System.out.printf("%-22s %s, %d rows, %d rows/s%n", parserThreads == 1 ? "1 parser thread" : "1 parser per processor",
+					job.getState(), job.getRows(), job.getRowsPerSecond());
+		} finally {
+			context.close();
+			dataBase.delete();
+			new File(dataBase.getAbsolutePath() + "-wal").delete();
+			new File(dataBase.getAbsolutePath() + "-shm").delete();
+		}
+	}
+}
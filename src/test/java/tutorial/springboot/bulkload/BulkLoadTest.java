@@ -0,0 +1,185 @@
+package tutorial.springboot.bulkload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.jayway.jsonpath.JsonPath;
+import com.zaxxer.hikari.HikariDataSource;
+
+import tutorial.springboot.rest_application.OrderStatusCounters;
+import tutorial.springboot.rest_application.Status;
+
+/**
+ * Tests on BulkLoader, with chunks of 1KB so that small files are parsed by several threads and written in several transactions.
+ * Rows are marked with a name unique to each run, and deleted afterwards.
+ */
+@SpringBootTest(properties = { "bulk-load.chunk-size = 1KB", "bulk-load.parser-threads = 4" })
+@AutoConfigureMockMvc
+public class BulkLoadTest {
+
+	private static final String MARK = "Bulk" + System.currentTimeMillis();
+	private static Path directory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BulkLoader loader;
+
+	@Autowired
+	private OrderStatusCounters orderStatusCounters;
+
+	private static JdbcTemplate jdbcTemplate;
+
+	@DynamicPropertySource
+	static void directory(DynamicPropertyRegistry registry) throws IOException {
+		directory = Files.createTempDirectory("bulk-load");
+		registry.add("bulk-load.directory", directory::toString);
+	}
+
+	@Autowired
+	void jdbcTemplate(HikariDataSource sqliteWriterPool) {
+		jdbcTemplate = new JdbcTemplate(sqliteWriterPool);
+	}
+
+	@AfterAll
+	static void deleteRows() throws IOException {
+		jdbcTemplate.update("delete from employee where last_name = ?", MARK);
+		jdbcTemplate.update("delete from customer_order where description like ?", MARK + "%");
+		jdbcTemplate.update("delete from bulk_load_checkpoint where file like ?", directory + "%");
+		try (var files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void csvShouldBeLoadedThenOnlyItsNewLines() throws Exception {
+		Path file = directory.resolve("employees.csv");
+		List<String> lines = new ArrayList<>(List.of("id,firstName,lastName,role"));
+		for (int i = 0; i < 300; i++) {
+			lines.add(i + ",Hobbit" + i + "," + MARK + ",\"gardener, \"\"cook\"\"\"");
+		}
+		Files.write(file, lines);
+
+		BulkLoadJob job = loader.newJob(BulkTable.EMPLOYEES, file);
+		loader.load(job);
+
+		assertThat(job.getState()).isEqualTo(BulkLoadJob.State.DONE);
+		assertThat(job.getRows()).isEqualTo(300);
+		assertThat(job.getProgress()).isEqualTo(100.0);
+		assertThat(employees()).isEqualTo(300);
+		assertThat(jdbcTemplate.queryForObject("select role from employee where first_name = 'Hobbit7' and last_name = ?", String.class, MARK))
+				.isEqualTo("gardener, \"cook\"");
+		// Indexed by the triggers of EmployeeSearchIndex.
+		assertThat(jdbcTemplate.queryForObject("select count(*) from employee_fts where employee_fts match ?", Long.class, MARK))
+				.isEqualTo(300);
+
+		Files.write(file, List.of("300,Hobbit300," + MARK + ",cook", "301,Hobbit301," + MARK + ",cook"), StandardOpenOption.APPEND);
+		BulkLoadJob again = loader.newJob(BulkTable.EMPLOYEES, file);
+		loader.load(again);
+
+		assertThat(again.getRows()).isEqualTo(2);
+		assertThat(again.getTotalRows()).isEqualTo(302);
+		assertThat(employees()).isEqualTo(302);
+	}
+
+	@Test
+	public void failedLoadShouldBeResumedWithoutDuplicates() throws Exception {
+		Path file = directory.resolve("orders.jsonl");
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			lines.add("{\"id\":" + i + ",\"description\":\"" + MARK + " " + i + "\",\"status\":\"" + (i % 2 == 0 ? "COMPLETED" : "IN_PROGRESS") + "\"}");
+		}
+		List<String> broken = new ArrayList<>(lines);
+		broken.set(150, "{\"description\":");
+		Files.write(file, broken);
+		long completed = orderStatusCounters.snapshot().get(Status.COMPLETED);
+
+		BulkLoadJob failed = loader.newJob(BulkTable.ORDERS, file);
+		loader.load(failed);
+
+		assertThat(failed.getState()).isEqualTo(BulkLoadJob.State.FAILED);
+		assertThat(failed.getError()).startsWith("Line at byte");
+		// The chunks before the bad line are committed.
+		assertThat(failed.getRows()).isBetween(1L, 150L);
+		assertThat(orders()).isEqualTo(failed.getRows());
+
+		Files.write(file, lines, StandardCharsets.UTF_8);
+		BulkLoadJob resumed = loader.newJob(BulkTable.ORDERS, file);
+		loader.load(resumed);
+
+		assertThat(resumed.getState()).isEqualTo(BulkLoadJob.State.DONE);
+		assertThat(resumed.getResumedAt()).isPositive();
+		assertThat(resumed.getTotalRows()).isEqualTo(200);
+		assertThat(orders()).isEqualTo(200);
+		assertThat(jdbcTemplate.queryForObject("select count(*) from customer_order where description like ? and status = ?", Long.class,
+				MARK + "%", Status.COMPLETED.ordinal())).isEqualTo(100);
+		assertThat(orderStatusCounters.snapshot().get(Status.COMPLETED)).isEqualTo(completed + 100);
+	}
+
+	@Test
+	public void onlyAdminsShouldLoadFilesOfTheDirectory() throws Exception {
+		Files.write(directory.resolve("admin.csv"), List.of("firstName,lastName", "Admin," + MARK));
+
+		this.mockMvc.perform(post("/admin/bulk-loads").param("table", "employees").param("file", "admin.csv").with(user("user")))
+				.andExpect(status().isForbidden());
+		this.mockMvc.perform(post("/admin/bulk-loads").param("table", "employees").param("file", "../admin.csv")
+						.with(user("admin").roles("ADMIN")))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(post("/admin/bulk-loads").param("table", "persons").param("file", "admin.csv")
+						.with(user("admin").roles("ADMIN")))
+				.andExpect(status().isBadRequest());
+
+		String location = this.mockMvc.perform(post("/admin/bulk-loads").param("table", "employees").param("file", "admin.csv")
+						.with(user("admin").roles("ADMIN")))
+				.andExpect(status().isAccepted())
+				.andExpect(header().exists("Location"))
+				.andReturn().getResponse().getHeader("Location");
+
+		String state = null;
+		for (int i = 0; i < 100 && !"DONE".equals(state); i++) {
+			Thread.sleep(100);
+			state = JsonPath.read(this.mockMvc.perform(get(location).with(user("admin").roles("ADMIN")))
+					.andExpect(jsonPath("$.table").value("employees"))
+					.andReturn().getResponse().getContentAsString(), "$.state");
+		}
+		assertThat(state).isEqualTo("DONE");
+		assertThat(jdbcTemplate.queryForObject("select count(*) from employee where first_name = 'Admin' and last_name = ?", Long.class,
+				MARK)).isEqualTo(1);
+	}
+
+	private static long employees() {
+		return jdbcTemplate.queryForObject("select count(*) from employee where last_name = ? and first_name like 'Hobbit%'", Long.class,
+				MARK);
+	}
+
+	private static long orders() {
+		return jdbcTemplate.queryForObject("select count(*) from customer_order where description like ?", Long.class, MARK + "%");
+	}
+}
@@ -0,0 +1,77 @@
+package tutorial.springboot.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests on the rate limit of write requests (see ClientRateLimiter), with small buckets : 2 requests, refilled every 2 seconds.
+ */
+@SpringBootTest(properties = { "rate-limit.capacity = 2", "rate-limit.permits-per-second = 0.5" })
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class ClientRateLimiterTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void clientShouldBeThrottledOnceItsBucketIsEmpty() throws Exception {
+		this.mockMvc.perform(newOrder("gollum")).andExpect(status().isCreated());
+		this.mockMvc.perform(newOrder("gollum")).andExpect(status().isCreated());
+
+		this.mockMvc.perform(newOrder("gollum"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+		assertThat(meterRegistry.get("rate.limit.throttled").tag("client", "user:gollum").counter().count()).isEqualTo(1);
+
+		// Reads and other clients are not limited.
+		this.mockMvc.perform(get("/orders").with(user("gollum"))).andExpect(status().isOk());
+		this.mockMvc.perform(newOrder("smeagol")).andExpect(status().isCreated());
+	}
+
+	@Test
+	public void bucketShouldBeRefilledAtTheGivenRate() {
+		long interval = TimeUnit.MILLISECONDS.toNanos(100);
+		TokenBucket bucket = new TokenBucket(3, interval, 0);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bucket.tryAcquire(0)).isZero();
+		}
+		assertThat(bucket.tryAcquire(0)).isEqualTo(interval);
+		assertThat(bucket.tryAcquire(interval / 2)).isEqualTo(interval / 2);
+		assertThat(bucket.tryAcquire(interval)).isZero();
+		assertThat(bucket.tryAcquire(interval)).isEqualTo(interval);
+
+		// Idle for long : the bucket is full again, but not fuller.
+		long later = 100 * interval;
+		for (int i = 0; i < 3; i++) {
+			assertThat(bucket.tryAcquire(later)).isZero();
+		}
+		assertThat(bucket.tryAcquire(later)).isPositive();
+	}
+
+	private static MockHttpServletRequestBuilder newOrder(String client) {
+		return post("/orders").with(user(client)).contentType(MediaType.APPLICATION_JSON).content("{\"description\":\"The ring\"}");
+	}
+}
@@ -0,0 +1,115 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Check that responses of collection endpoints are served from CollectionResponseCacheFilter until the table is modified, also
+ * gzip-compressed.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@WithMockUser
+public class CollectionResponseCacheTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository repository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void responseShouldBeCachedUntilTableIsModified() throws Exception {
+		Employee employee = repository.save(new Employee("Tom", "Bombadil", "master"));
+		String uri = "/employees?after=" + (employee.getId() - 1) + "&size=1";
+
+		byte[] first = this.mockMvc.perform(get(uri)).andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+		double hits = hits();
+		byte[] second = this.mockMvc.perform(get(uri))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.employeeList[0].role").value("master"))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertThat(hits()).isEqualTo(hits + 1);
+		assertThat(second).isEqualTo(first);
+
+		employee.setRole("oldest");
+		repository.save(employee);
+
+		this.mockMvc.perform(get(uri))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.employeeList[0].role").value("oldest"));
+		assertThat(hits()).isEqualTo(hits + 1);
+	}
+
+	@Test
+	public void responseShouldBeCompressedForClientsAcceptingGzip() throws Exception {
+		byte[] plain = this.mockMvc.perform(get("/employees")).andReturn().getResponse().getContentAsByteArray();
+
+		for (int i = 0; i < 2; i++) {
+			byte[] compressed = this.mockMvc.perform(get("/employees").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+					.andExpect(status().isOk())
+					.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+					.andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+					.andReturn().getResponse().getContentAsByteArray();
+
+			try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+				assertThat(gzip.readAllBytes()).isEqualTo(plain);
+			}
+		}
+	}
+
+	private double hits() {
+		return meterRegistry.find("collection.response.cache").tag("collection", "/employees").tag("result", "hit").counters()
+				.stream().mapToDouble(counter -> counter.count()).sum();
+	}
+
+	@Test
+	public void gzipShouldNotBeSentToClientsRefusingIt() throws Exception {
+		for (String acceptEncoding : new String[] { "gzip;q=0, deflate", "deflate, *;q=0.5, gzip;q=0" }) {
+			this.mockMvc.perform(get("/employees").header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+					.andExpect(status().isOk())
+					.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+		}
+		this.mockMvc.perform(get("/employees").header(HttpHeaders.ACCEPT_ENCODING, "*"))
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+	}
+
+	@Test
+	public void gzipResponseShouldHaveItsOwnETag() throws Exception {
+		String etag = this.mockMvc.perform(get("/employees"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String gzipEtag = this.mockMvc.perform(get("/employees").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(gzipEtag).isNotEqualTo(etag);
+
+		this.mockMvc.perform(get("/employees").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, gzipEtag));
+		this.mockMvc.perform(get("/employees").header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+				.andExpect(status().isOk());
+		this.mockMvc.perform(get("/employees").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+}
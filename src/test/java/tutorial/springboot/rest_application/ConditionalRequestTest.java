@@ -0,0 +1,114 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests on ETags and conditional requests (see ETags). Watch EmployeeControllerTest for more details on tests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class ConditionalRequestTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Test
+	public void unchangedEmployeeShouldNotBeSentAgain() throws Exception {
+		Employee employee = employeeRepository.save(new Employee("Meriadoc", "Brandybuck", "esquire"));
+		String uri = "/employees/" + employee.getId();
+
+		String etag = this.mockMvc.perform(get(uri))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		this.mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		this.mockMvc.perform(put(uri).with(csrf()).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Meriadoc Brandybuck\",\"role\":\"knight\"}"))
+				.andExpect(status().isCreated())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+		this.mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+	}
+
+	@Test
+	public void employeesShouldOnlyBeSentAgainAfterAModification() throws Exception {
+		String etag = this.mockMvc.perform(get("/employees"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotNull();
+
+		this.mockMvc.perform(get("/employees").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		employeeRepository.save(new Employee("Fredegar", "Bolger", "lookout"));
+
+		this.mockMvc.perform(get("/employees").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void outdatedEmployeeShouldNotBeReplacedNorDeleted() throws Exception {
+		Employee employee = employeeRepository.save(new Employee("Lotho", "Sackville-Baggins", "chief"));
+		String uri = "/employees/" + employee.getId();
+
+		this.mockMvc.perform(put(uri).with(csrf()).header(HttpHeaders.IF_MATCH, "\"0\"").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Lotho Pimple\",\"role\":\"boss\"}"))
+				.andExpect(status().isCreated());
+
+		this.mockMvc.perform(put(uri).with(csrf()).header(HttpHeaders.IF_MATCH, "\"0\"").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Lotho Sackville-Baggins\",\"role\":\"chief\"}"))
+				.andExpect(status().isPreconditionFailed());
+		this.mockMvc.perform(delete(uri).with(csrf()).header(HttpHeaders.IF_MATCH, "\"0\""))
+				.andExpect(status().isPreconditionFailed());
+		assertThat(employeeRepository.findById(employee.getId())).get().extracting(Employee::getRole).isEqualTo("boss");
+
+		this.mockMvc.perform(delete(uri).with(csrf()).header(HttpHeaders.IF_MATCH, "\"1\""))
+				.andExpect(status().isNoContent());
+		assertThat(employeeRepository.findById(employee.getId())).isEmpty();
+	}
+
+	@Test
+	public void outdatedOrderStatusShouldNotBeChanged() throws Exception {
+		Order order = orderRepository.save(new Order("Mithril coat", Status.IN_PROGRESS));
+		String uri = "/orders/" + order.getId();
+
+		this.mockMvc.perform(put(uri + "/complete").with(csrf()).header(HttpHeaders.IF_MATCH, "\"3\""))
+				.andExpect(status().isPreconditionFailed());
+
+		this.mockMvc.perform(put(uri + "/complete").with(csrf()).header(HttpHeaders.IF_MATCH, "\"0\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+		this.mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+				.andExpect(status().isNotModified());
+	}
+}
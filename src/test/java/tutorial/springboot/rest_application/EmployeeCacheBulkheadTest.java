@@ -0,0 +1,71 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tutorial.springboot.threads.BulkheadFullException;
+import tutorial.springboot.threads.JdbcBulkhead;
+
+/**
+ * Check that cached employees are read without a permit of JdbcBulkhead (see EntityCacheConfig) : while the only permit is
+ * used, a cached employee is still returned, while an employee that is not cached is refused.
+ */
+@SpringBootTest(properties = { "jdbc-bulkhead.permits = 1", "jdbc-bulkhead.max-wait = 50ms" })
+public class EmployeeCacheBulkheadTest {
+
+	@Autowired
+	private EmployeeRepository repository;
+
+	@Autowired
+	private JdbcBulkhead bulkhead;
+
+	@Test
+	public void cacheHitShouldNotTakeAPermit() throws Throwable {
+		Employee cached = repository.save(new Employee("Nom", "Nom", "cat"));
+		Employee other = repository.save(new Employee("Hobbes", "Tiger", "friend"));
+		repository.findCachedById(cached.getId());
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		ProceedingJoinPoint slowCall = mock(ProceedingJoinPoint.class);
+		Signature signature = mock(Signature.class);
+		when(slowCall.getSignature()).thenReturn(signature);
+		when(slowCall.proceed()).then(invocation -> {
+			started.countDown();
+			return finish.await(10, TimeUnit.SECONDS);
+		});
+		CompletableFuture<Object> permitHolder = CompletableFuture.supplyAsync(() -> {
+			try {
+				return bulkhead.limit(slowCall);
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		try {
+			assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(bulkhead.availablePermits()).isZero();
+
+			assertThat(repository.findCachedById(cached.getId())).isPresent();
+			assertThatThrownBy(() -> repository.findCachedById(other.getId())).isInstanceOf(BulkheadFullException.class);
+		} finally {
+			finish.countDown();
+		}
+		assertThat(permitHolder.get(10, TimeUnit.SECONDS)).isEqualTo(true);
+
+		repository.deleteById(cached.getId());
+		repository.deleteById(other.getId());
+	}
+}
@@ -0,0 +1,73 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tutorial.springboot.cache.EntityCacheConfig;
+
+/**
+ * Check that employees read by id are cached, that saving or deleting them removes them from the cache, and that hits are
+ * published as metrics.
+ */
+@SpringBootTest
+@AutoConfigureMetrics
+public class EmployeeCacheTest {
+
+	@Autowired
+	private EmployeeRepository repository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void readShouldBeCachedUntilSaved() {
+		Employee employee = repository.save(new Employee("Garfield", "Cat", "cat"));
+		Cache cache = cacheManager.getCache(EntityCacheConfig.EMPLOYEES);
+
+		assertThat(repository.findCachedById(employee.getId())).isPresent();
+		assertThat(cache.get(employee.getId())).isNotNull();
+
+		employee.setRole("lazy cat");
+		repository.save(employee);
+		assertThat(cache.get(employee.getId())).isNull();
+		assertThat(repository.findCachedById(employee.getId()).get().getRole()).isEqualTo("lazy cat");
+
+		repository.deleteById(employee.getId());
+		assertThat(cache.get(employee.getId())).isNull();
+		assertThat(repository.findCachedById(employee.getId())).isEmpty();
+	}
+
+	@Test
+	public void absentEmployeeShouldNotBeCached() {
+		assertThat(repository.findCachedById(Long.MAX_VALUE)).isEmpty();
+
+		assertThat(cacheManager.getCache(EntityCacheConfig.EMPLOYEES).get(Long.MAX_VALUE)).isNull();
+	}
+
+	@Test
+	public void hitsShouldBePublishedAsMetrics() {
+		Employee employee = repository.save(new Employee("Odie", "Dog", "dog"));
+		double hits = hits();
+
+		repository.findCachedById(employee.getId());
+		repository.findCachedById(employee.getId());
+
+		assertThat(hits()).isEqualTo(hits + 1);
+		repository.deleteById(employee.getId());
+	}
+
+	private double hits() {
+		return meterRegistry.get("cache.gets").tag("cache", EntityCacheConfig.EMPLOYEES).tag("result", "hit").functionCounter()
+				.count();
+	}
+}
@@ -0,0 +1,233 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.jayway.jsonpath.JsonPath;
+
+import tutorial.springboot.threads.DatabaseExecutor;
+
+/**
+ * Tests on employees' endpoints. LoadDatabase always stores at least two employees at startup.<br/>
+ * <br/>
+ * @WithMockUser (from spring-security-test) runs each test as an authenticated user, so requests are not redirected to the login page.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class EmployeeControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository repository;
+
+	@Autowired
+	private DatabaseExecutor databaseExecutor;
+
+	@Value("${database-executor.threads}")
+	private int databaseExecutorThreads;
+
+	@Test
+	public void pageShouldContainRequestedSizeAndNextLink() throws Exception {
+
+		this.mockMvc.perform(get("/employees").param("size", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.employeeList", hasSize(1)))
+				.andExpect(jsonPath("$._embedded.employeeList[0]._links.employees.href").value("http://localhost/employees"))
+				.andExpect(jsonPath("$._links.self.href").value("http://localhost/employees?size=1"))
+				.andExpect(jsonPath("$._links.next.href", startsWith("http://localhost/employees?after=")));
+	}
+
+	@Test
+	public void firstPageSelfLinkShouldNotBeTemplated() throws Exception {
+
+		this.mockMvc.perform(get("/employees"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._links.self.href").value("http://localhost/employees"))
+				.andExpect(jsonPath("$._links.self.templated").doesNotExist());
+	}
+
+	@Test
+	public void exportShouldWriteOneEmployeePerLine() throws Exception {
+
+		this.mockMvc.perform(get("/employees/export"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+				.andExpect(content().string(containsString("\"firstName\":\"Bilbo\",\"lastName\":\"Baggins\"")))
+				.andExpect(content().string(containsString("}\n{")));
+	}
+
+	@Test
+	public void batchShouldCreateAllEmployees() throws Exception {
+
+		String body = this.mockMvc.perform(post("/employees/batch").with(csrf())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"firstName\":\"Samwise\",\"lastName\":\"Gamgee\",\"role\":\"gardener\"},"
+								+ "{\"id\":1,\"firstName\":\"Peregrin\",\"lastName\":\"Took\",\"role\":\"fool\"}]"))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.ids", hasSize(2)))
+				.andExpect(jsonPath("$._links.item", hasSize(2)))
+				.andReturn().getResponse().getContentAsString();
+
+		List<Number> ids = JsonPath.read(body, "$.ids");
+		assertThat(repository.findById(ids.get(0).longValue())).get().extracting(Employee::getRole).isEqualTo("gardener");
+		assertThat(repository.findById(ids.get(1).longValue())).get().extracting(Employee::getRole).isEqualTo("fool");
+	}
+
+	@Test
+	public void batchShouldRejectAnythingElseThanAnArray() throws Exception {
+
+		this.mockMvc.perform(post("/employees/batch").with(csrf())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"firstName\":\"Samwise\"}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	/**
+	 * An asynchronous request returns at once ("asyncStarted"). asyncDispatch() waits for its result and writes the response, as
+	 * Spring MVC would do.
+	 */
+	@Test
+	public void asyncEmployeeShouldHaveAbsoluteLinks() throws Exception {
+		Employee employee = repository.save(new Employee("Meriadoc", "Brandybuck", "squire"));
+
+		MvcResult result = this.mockMvc.perform(get("/async/employees/" + employee.getId()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.role").value("squire"))
+				.andExpect(jsonPath("$._links.self.href").value("http://localhost/employees/" + employee.getId()));
+	}
+
+	/**
+	 * The page is only read once all of DatabaseExecutor's threads are free again, after the request's thread has returned : its
+	 * links must not need the request anymore.
+	 */
+	@Test
+	public void asyncPageQueuedBehindOtherWorkShouldHaveLinks() throws Exception {
+		Employee first = repository.save(new Employee("Fredegar", "Bolger", "guard"));
+		repository.save(new Employee("Folco", "Boffin", "friend"));
+
+		MvcResult result = performQueued(get("/async/employees").param("after", String.valueOf(first.getId() - 1)).param("size", "1"));
+
+		this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.employeeList[0]._links.self.href").value("http://localhost/employees/" + first.getId()))
+				.andExpect(jsonPath("$._links.self.href").value("http://localhost/employees?after=" + (first.getId() - 1) + "&size=1"))
+				.andExpect(jsonPath("$._links.next.href").value("http://localhost/employees?after=" + first.getId() + "&size=1"));
+	}
+
+	/**
+	 * Same as above for the creations : their "Location" header and links are built from the base URI read on the request's thread.
+	 */
+	@Test
+	public void asyncCreationQueuedBehindOtherWorkShouldHaveLocation() throws Exception {
+		MvcResult result = performQueued(post("/async/orders").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"description\":\"Lembas\"}"));
+
+		String location = this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isCreated())
+				.andExpect(header().string(HttpHeaders.LOCATION, startsWith("http://localhost/orders/")))
+				.andExpect(jsonPath("$._links.cancel.href", startsWith("http://localhost/orders/")))
+				.andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+		result = performQueued(post("/async/employees").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"firstName\":\"Farmer\",\"lastName\":\"Maggot\",\"role\":\"farmer\"}"));
+
+		this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isCreated())
+				.andExpect(header().string(HttpHeaders.LOCATION, startsWith("http://localhost/employees/")));
+
+		result = performQueued(get(location.replace("http://localhost/orders/", "/async/orders/")));
+
+		this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._links.self.href").value(location));
+	}
+
+	/**
+	 * Perform an asynchronous request while every thread of DatabaseExecutor is busy, so that its work is queued until after the
+	 * request's thread has returned.
+	 */
+	private MvcResult performQueued(RequestBuilder requestBuilder) throws Exception {
+		CountDownLatch started = new CountDownLatch(databaseExecutorThreads);
+		CountDownLatch release = new CountDownLatch(1);
+		List<CompletableFuture<Boolean>> busy = new ArrayList<>();
+		for (int i = 0; i < databaseExecutorThreads; i++) {
+			busy.add(databaseExecutor.supply(() -> {
+				started.countDown();
+				return await(release);
+			}));
+		}
+
+		MvcResult result;
+		try {
+			assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+			result = this.mockMvc.perform(requestBuilder)
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			assertThat(databaseExecutor.queueDepth()).isEqualTo(1);
+		} finally {
+			release.countDown();
+		}
+		for (CompletableFuture<Boolean> task : busy) {
+			assertThat(task.get(10, TimeUnit.SECONDS)).isTrue();
+		}
+		return result;
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Test
+	public void asyncUnknownEmployeeShouldNotBeFound() throws Exception {
+
+		MvcResult result = this.mockMvc.perform(get("/async/employees/" + Long.MAX_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,76 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Check that controllers, repositories, assemblers and JSON serialization are timed (see MethodTimers), with tags breaking them
+ * down by endpoint, and that percentiles are published.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class EmployeeMetricsTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository repository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void eachLayerShouldBeTimedByEndpoint() throws Exception {
+		Employee employee = repository.save(new Employee("Jon", "Arbuckle", "cartoonist"));
+		long controller = count("tutorial.controller", "controller", "EmployeeController", "method", "one", "exception", "none");
+
+		this.mockMvc.perform(get("/employees/" + employee.getId()).with(user("user"))).andExpect(status().isOk());
+
+		assertThat(count("tutorial.controller", "controller", "EmployeeController", "method", "one", "exception", "none"))
+				.isEqualTo(controller + 1);
+		assertThat(count("tutorial.repository", "repository", "EmployeeRepository", "uri", "/employees/{id}")).isPositive();
+		assertThat(count("tutorial.assembler", "assembler", "EmployeeModelAssembler", "method", "toModel", "uri", "/employees/{id}"))
+				.isPositive();
+		assertThat(count("tutorial.serialization", "type", "EntityModel", "uri", "/employees/{id}")).isPositive();
+		assertThat(meterRegistry.find("tutorial.controller.percentile").tag("method", "one").tag("phi", "0.99").gauge()).isNotNull();
+
+		repository.deleteById(employee.getId());
+	}
+
+	@Test
+	public void exceptionsAndAsyncMethodsShouldBeTimed() throws Exception {
+		this.mockMvc.perform(get("/employees/" + Long.MAX_VALUE).with(user("user"))).andExpect(status().isNotFound());
+
+		assertThat(count("tutorial.controller", "method", "one", "exception", "EmployeeNotFoundException")).isPositive();
+
+		Employee employee = repository.save(new Employee("Nermal", "Cat", "cute"));
+		long async = count("tutorial.controller", "method", "oneAsync", "exception", "none");
+		MvcResult result = this.mockMvc.perform(get("/async/employees/" + employee.getId()).with(user("user")))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+		assertThat(count("tutorial.controller", "method", "oneAsync", "exception", "none")).isEqualTo(async + 1);
+		repository.deleteById(employee.getId());
+	}
+
+	private long count(String name, String... tags) {
+		return meterRegistry.find(name).tags(tags).timers().stream().mapToLong(timer -> timer.count()).sum();
+	}
+}
@@ -0,0 +1,81 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests on the full-text search of employees (see EmployeeSearchIndex). The data base is kept between runs, so each test
+ * searches a word of its own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class EmployeeSearchTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository repository;
+
+	@Test
+	public void employeesShouldBeFoundByPrefixesBestFirst() throws Exception {
+		String word = uniqueWord();
+		Employee inRole = repository.save(new Employee("Gaffer", "Gamgee", word + " gardener"));
+		Employee inName = repository.save(new Employee("Hamfast", word, "gardener"));
+
+		this.mockMvc.perform(get("/employees/search").param("q", word.substring(0, 6)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.employeeList", hasSize(2)))
+				.andExpect(jsonPath("$._embedded.employeeList[0].id").value(inName.getId()))
+				.andExpect(jsonPath("$._embedded.employeeList[1].id").value(inRole.getId()));
+
+		this.mockMvc.perform(get("/employees/search").param("q", "gaf " + word))
+				.andExpect(jsonPath("$._embedded.employeeList", hasSize(1)))
+				.andExpect(jsonPath("$._embedded.employeeList[0].id").value(inRole.getId()));
+	}
+
+	@Test
+	public void indexShouldFollowModificationsAndDeletions() throws Exception {
+		String word = uniqueWord();
+		Employee employee = repository.save(new Employee("Ted", word, "miller"));
+
+		employee.setRole("sandyman");
+		repository.save(employee);
+		this.mockMvc.perform(get("/employees/search").param("q", word + " miller"))
+				.andExpect(jsonPath("$._embedded").doesNotExist());
+		this.mockMvc.perform(get("/employees/search").param("q", word + " sandy"))
+				.andExpect(jsonPath("$._embedded.employeeList", hasSize(1)));
+
+		repository.deleteById(employee.getId());
+		this.mockMvc.perform(get("/employees/search").param("q", word))
+				.andExpect(jsonPath("$._embedded").doesNotExist());
+	}
+
+	@Test
+	public void operatorsShouldBeSearchedAsText() throws Exception {
+
+		assertThat(EmployeeSearchIndex.toMatchQuery("bil -bag* OR \"x")).isEqualTo("\"bil\"* \"bag\"* \"OR\"* \"x\"*");
+
+		this.mockMvc.perform(get("/employees/search").param("q", "\"* -"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded").doesNotExist());
+	}
+
+	/**
+	 * A word made of letters only, different at each run.
+	 */
+	private static String uniqueWord() {
+		return "zq" + Long.toString(System.nanoTime(), 36).replaceAll("[0-9]", "x");
+	}
+}
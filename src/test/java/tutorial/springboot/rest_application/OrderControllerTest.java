@@ -0,0 +1,145 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import tutorial.springboot.metrics.SqlStatistics;
+import tutorial.springboot.metrics.StatementStatistics;
+
+/**
+ * Tests on orders' endpoints. Watch EmployeeControllerTest for more details.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class OrderControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OrderRepository repository;
+
+	@Autowired
+	private OrderStatusCounters counters;
+
+	@Autowired
+	private SqlStatistics sqlStatistics;
+
+	@Test
+	public void orderShouldOnlyBeCancelledOnce() throws Exception {
+		Order order = repository.save(new Order("Ring", Status.IN_PROGRESS));
+
+		this.mockMvc.perform(delete("/orders/" + order.getId() + "/cancel").with(csrf()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("CANCELLED"));
+
+		this.mockMvc.perform(put("/orders/" + order.getId() + "/complete").with(csrf()))
+				.andExpect(status().isMethodNotAllowed())
+				.andExpect(jsonPath("$.detail").value("You can't complete an order that is in the CANCELLED status"));
+	}
+
+	@Test
+	public void statusChangeShouldSendASingleStatement() throws Exception {
+		Order order = repository.save(new Order("Phial", Status.IN_PROGRESS));
+		long statements = statements("PUT /orders/{id}/complete");
+
+		this.mockMvc.perform(put("/orders/" + order.getId() + "/complete").with(csrf()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("COMPLETED"))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + (order.getVersion() + 1) + "\""))
+				.andExpect(jsonPath("$.description").value("Phial"));
+
+		assertThat(statements("PUT /orders/{id}/complete")).isEqualTo(statements + 1);
+	}
+
+	private long statements(String endpoint) {
+		return sqlStatistics.statements().stream()
+				.filter(statement -> statement.getEndpoint().equals(endpoint))
+				.mapToLong(StatementStatistics::getCount)
+				.sum();
+	}
+
+	@Test
+	public void unknownOrderShouldNotBeFound() throws Exception {
+
+		this.mockMvc.perform(delete("/orders/" + Long.MAX_VALUE + "/cancel").with(csrf()))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void statusChangeShouldIncrementVersion() {
+		Order order = repository.save(new Order("Mithril coat", Status.IN_PROGRESS));
+
+		assertThat(repository.updateStatus(order.getId(), Status.IN_PROGRESS, Status.COMPLETED)).hasValueSatisfying(completed -> {
+			assertThat(completed.getStatus()).isEqualTo(Status.COMPLETED);
+			assertThat(completed.getVersion()).isEqualTo(order.getVersion() + 1);
+			assertThat(completed.getDescription()).isEqualTo("Mithril coat");
+		});
+		assertThat(repository.updateStatus(order.getId(), Status.IN_PROGRESS, Status.CANCELLED)).isEmpty();
+
+		// "order" still has the version read before the update : saving it would overwrite the COMPLETED status.
+		order.setDescription("Mithril shirt");
+		assertThatThrownBy(() -> repository.save(order)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+	}
+
+	@Test
+	public void statusFilterShouldOnlyReturnOrdersOfThisStatus() throws Exception {
+		repository.save(new Order("Sting", Status.CANCELLED));
+
+		this.mockMvc.perform(get("/orders").param("status", "CANCELLED").param("size", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.orderList[*].status", everyItem(is("CANCELLED"))))
+				.andExpect(jsonPath("$._links.self.href").value("http://localhost/orders?size=1&status=CANCELLED"));
+	}
+
+	@Test
+	public void statsShouldCountNewAndCompletedOrders() throws Exception {
+		long inProgress = counters.snapshot().get(Status.IN_PROGRESS);
+		long completed = counters.snapshot().get(Status.COMPLETED);
+
+		String location = this.mockMvc.perform(post("/orders").with(csrf())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"description\":\"Phial\"}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getHeader("Location");
+
+		this.mockMvc.perform(get("/orders/stats"))
+				.andExpect(jsonPath("$.IN_PROGRESS").value(inProgress + 1))
+				.andExpect(jsonPath("$.COMPLETED").value(completed));
+
+		this.mockMvc.perform(put(location + "/complete").with(csrf()))
+				.andExpect(status().isOk());
+
+		this.mockMvc.perform(get("/orders/stats"))
+				.andExpect(jsonPath("$.IN_PROGRESS").value(inProgress))
+				.andExpect(jsonPath("$.COMPLETED").value(completed + 1));
+	}
+
+	@Test
+	public void rebuiltStatsShouldMatchDataBase() {
+		counters.rebuild();
+
+		assertThat(counters.snapshot().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(repository.count());
+	}
+}
@@ -0,0 +1,68 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Links;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import tutorial.springboot.hateoas.LinkTemplate;
+
+/**
+ * Plain unit test (no Spring context) checking that links built from LinkTemplate are the same as the ones built by 
+ * "linkTo(methodOn(...))" for the current request.
+ */
+public class OrderModelAssemblerTest {
+
+	private final OrderModelAssembler assembler = new OrderModelAssembler();
+
+	@BeforeEach
+	public void bindRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setServerName("example.org");
+		request.setServerPort(8080);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@AfterEach
+	public void unbindRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void linksShouldBeTheSameAsLinkToMethodOn() {
+		Order order = new Order("MacBook Pro", Status.IN_PROGRESS);
+		order.setId(7L);
+
+		Links expected = Links.of(linkTo(methodOn(OrderController.class).one(7L, null)).withSelfRel(),
+				linkTo(methodOn(OrderController.class).all(null, null, null, null)).withRel("orders").expand(),
+				linkTo(methodOn(OrderController.class).cancel(7L, null)).withRel("cancel"),
+				linkTo(methodOn(OrderController.class).complete(7L, null)).withRel("complete"));
+
+		// Links are compared on their rendering (href and rel) : links built by linkTo() also carry affordances, not rendered in HAL.
+		assertThat(assembler.toModel(order).getLinks().toString()).isEqualTo(expected.toString());
+		assertThat(expected.getRequiredLink("self").getHref()).isEqualTo("http://example.org:8080/orders/7");
+	}
+
+	@Test
+	public void baseUriShouldBeUsableFromAnotherThread() throws Exception {
+		Order order = new Order("iPhone", Status.COMPLETED);
+		order.setId(8L);
+		String baseUri = LinkTemplate.currentBaseUri();
+
+		EntityModel<?>[] model = new EntityModel<?>[1];
+		Thread thread = new Thread(() -> model[0] = assembler.toModel(order, baseUri));
+		thread.start();
+		thread.join();
+
+		assertThat(model[0].getRequiredLink("self").getHref()).isEqualTo("http://example.org:8080/orders/8");
+		assertThat(model[0].getLink("cancel")).isEmpty();
+	}
+}
@@ -0,0 +1,54 @@
+package tutorial.springboot.rest_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Check that the "sql" actuator endpoint shows the statements of each endpoint, and the requests sending more statements than
+ * allowed (here 1).
+ */
+@SpringBootTest(properties = "sql-statistics.max-statements-per-request = 1")
+@AutoConfigureMockMvc
+@WithMockUser(roles = { "USER", "ADMIN" })
+public class SqlStatisticsTest {
+
+	private static final String CANCEL = "DELETE /orders/{id}/cancel";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OrderRepository repository;
+
+	@Test
+	public void statementsShouldBeShownByEndpoint() throws Exception {
+		Order order = repository.save(new Order("Sting", Status.IN_PROGRESS));
+
+		// Once cancelled, the order is read again to tell why it can not be cancelled twice : a second statement.
+		this.mockMvc.perform(delete("/orders/" + order.getId() + "/cancel").with(csrf())).andExpect(status().isOk());
+		this.mockMvc.perform(delete("/orders/" + order.getId() + "/cancel").with(csrf())).andExpect(status().isMethodNotAllowed());
+
+		String statistics = this.mockMvc.perform(get("/actuator/sql"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		List<String> statements = JsonPath.read(statistics, "$.statements[?(@.endpoint == '" + CANCEL + "')].sql");
+		assertThat(statements).anyMatch(sql -> sql.startsWith("select")).anyMatch(sql -> sql.startsWith("update"));
+		List<Integer> rows = JsonPath.read(statistics, "$.statements[?(@.endpoint == '" + CANCEL + "')].rows");
+		assertThat(rows).allMatch(count -> count > 0);
+		assertThat(JsonPath.<List<String>>read(statistics, "$.flaggedRequests[*].endpoint")).contains(CANCEL);
+	}
+}
@@ -0,0 +1,74 @@
+package tutorial.springboot.restful;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of GreetingIdAllocator : no Spring context is needed.
+ */
+public class GreetingIdAllocatorTest {
+
+	@Test
+	public void singleThreadShouldGetConsecutiveIds() {
+		GreetingIdAllocator allocator = new GreetingIdAllocator(4);
+
+		for (long expected = 1; expected <= 10; expected++) {
+			assertThat(allocator.nextId()).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	public void idsShouldBeUniqueAcrossThreads() throws Exception {
+		GreetingIdAllocator allocator = new GreetingIdAllocator(16);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		int threads = 8;
+		int idsPerThread = 10_000;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(() -> {
+				long previous = 0;
+				for (int j = 0; j < idsPerThread; j++) {
+					long id = allocator.nextId();
+					assertThat(id).isGreaterThan(previous);
+					ids.add(id);
+					previous = id;
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertThat(ids).hasSize(threads * idsPerThread);
+	}
+
+	@Test
+	public void shortLivedThreadsShouldNotLeaveUnusedBlocks() throws Exception {
+		GreetingIdAllocator allocator = new GreetingIdAllocator(64);
+		int threads = 1_000;
+		long[] lastId = new long[1];
+
+		// One id per thread, as with a virtual thread per request : blocks are kept by stripes, not by the threads that stopped.
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(() -> lastId[0] = Math.max(lastId[0], allocator.nextId()));
+			thread.start();
+			thread.join();
+		}
+
+		// At most one block per stripe is partly used, while a block per thread would reach 64 000.
+		int maxStripes = Runtime.getRuntime().availableProcessors() * 2;
+		assertThat(lastId[0]).isLessThanOrEqualTo(threads + 64L * maxStripes);
+	}
+}
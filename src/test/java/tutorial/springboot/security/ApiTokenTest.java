@@ -0,0 +1,96 @@
+package tutorial.springboot.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Tests on the bearer tokens of the JSON API (see ApiTokens and WebSecurityConfig).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ApiTokenTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void tokenShouldAuthenticateApiRequestsWithoutSession() throws Exception {
+		String token = JsonPath.read(this.mockMvc.perform(post("/api/token").with(httpBasic("user", "password")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.token_type").value("Bearer"))
+				.andReturn().getResponse().getContentAsString(), "$.access_token");
+
+		MvcResult result = this.mockMvc.perform(get("/employees").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertThat(result.getRequest().getSession(false)).isNull();
+
+		// No CSRF token is needed either.
+		this.mockMvc.perform(post("/orders").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"description\":\"Lembas\"}"))
+				.andExpect(status().isCreated());
+	}
+
+	@Test
+	public void apiRequestsWithoutValidTokenShouldBeUnauthorized() throws Exception {
+		this.mockMvc.perform(post("/api/token").with(httpBasic("user", "wrong")))
+				.andExpect(status().isUnauthorized());
+
+		this.mockMvc.perform(get("/sqlite_persons"))
+				.andExpect(status().isUnauthorized())
+				.andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"));
+
+		String token = JsonPath.read(this.mockMvc.perform(post("/api/token").with(httpBasic("user", "password")))
+				.andReturn().getResponse().getContentAsString(), "$.access_token");
+		String forged = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+		this.mockMvc.perform(get("/employees").header(HttpHeaders.AUTHORIZATION, "Bearer " + forged))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	public void formLoginShouldStillProtectOtherPages() throws Exception {
+		this.mockMvc.perform(get("/security_hello"))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/security_login"));
+	}
+
+	@Test
+	public void tokenShouldCarryUserAndExpire() throws Exception {
+		ApiTokenProperties properties = new ApiTokenProperties();
+		properties.setSecret("c2VjcmV0IGtleSBvZiB0aGUgdGVzdHMsIDMyIGJ5dGVzIQ==");
+		Authentication user = new UsernamePasswordAuthenticationToken("frodo:baggins", null,
+				List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_BEARER")));
+
+		Authentication authentication = new ApiTokens(properties).authenticate(new ApiTokens(properties).issue(user));
+		assertThat(authentication.getName()).isEqualTo("frodo:baggins");
+		assertThat(authentication.getAuthorities()).isEqualTo(user.getAuthorities());
+		assertThat(authentication.isAuthenticated()).isTrue();
+
+		properties.setValidity(Duration.ofSeconds(-1));
+		ApiTokens expiring = new ApiTokens(properties);
+		assertThat(expiring.authenticate(expiring.issue(user))).isNull();
+		assertThat(expiring.authenticate("not a token")).isNull();
+	}
+}
@@ -0,0 +1,71 @@
+package tutorial.springboot.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Tests on the chains of public paths (see WebSecurityConfig) : they are served to anonymous users, without session.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PublicSecurityFilterChainTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void publicPagesShouldSkipSecurity() throws Exception {
+		for (String path : new String[] { "/hello", "/index.html", "/web_greeting" }) {
+			MvcResult result = this.mockMvc.perform(get(path))
+					.andExpect(status().isOk())
+					// Added by HeaderWriterFilter in the other chains.
+					.andExpect(header().doesNotExist("X-Frame-Options"))
+					.andReturn();
+			assertThat(result.getRequest().getSession(false)).isNull();
+		}
+	}
+
+	@Test
+	public void publicApiShouldOnlyKeepSecurityHeaders() throws Exception {
+		for (String path : new String[] { "/greeting", "/actuator/health" }) {
+			MvcResult result = this.mockMvc.perform(get(path))
+					.andExpect(status().isOk())
+					.andExpect(header().string("X-Frame-Options", "DENY"))
+					.andReturn();
+			assertThat(result.getRequest().getSession(false)).isNull();
+		}
+	}
+
+	@Test
+	public void otherActuatorEndpointsShouldStayProtected() throws Exception {
+		this.mockMvc.perform(get("/actuator/metrics"))
+				.andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	public void otherActuatorEndpointsShouldOnlyBeForAdmins() throws Exception {
+		for (String path : new String[] { "/actuator/metrics", "/actuator/caches", "/actuator/sql" }) {
+			this.mockMvc.perform(get(path).with(user("user").roles("USER")))
+					.andExpect(status().isForbidden());
+			this.mockMvc.perform(get(path).with(user("admin").roles("USER", "ADMIN")))
+					.andExpect(status().isOk());
+		}
+		this.mockMvc.perform(delete("/actuator/caches").with(user("user").roles("USER")).with(csrf()))
+				.andExpect(status().isForbidden());
+		this.mockMvc.perform(post("/actuator/startup").with(user("user").roles("USER")).with(csrf()))
+				.andExpect(status().isForbidden());
+	}
+}
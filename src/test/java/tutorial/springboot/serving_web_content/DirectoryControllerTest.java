@@ -0,0 +1,44 @@
+package tutorial.springboot.serving_web_content;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests on the HTML directories. LoadDatabase and FillSqliteTables always store some employees and persons at startup.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class DirectoryControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void employeesDirectoryShouldListEmployees() throws Exception {
+
+		this.mockMvc.perform(get("/directory/employees"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML))
+				.andExpect(content().string(containsString("<td>Bilbo Baggins</td>")))
+				.andExpect(content().string(containsString("</html>")));
+	}
+
+	@Test
+	public void personsDirectoryShouldListPersons() throws Exception {
+
+		this.mockMvc.perform(get("/directory/persons"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("<td>He likes cakes.</td>")));
+	}
+}
@@ -0,0 +1,128 @@
+package tutorial.springboot.serving_web_content;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import tutorial.springboot.SpringbootApplication;
+
+/**
+ * Measure the time to first byte and the total time of "/directory/persons" (see ChunkedTemplateRenderer) for growing tables :<br/>
+ * - The application is started on a temporary data base file, and persons are inserted with plain JDBC.<br/>
+ * - The page is read through HTTP, as a browser would, after logging in.<br/>
+ * <br/>
+ * The time to first byte should stay the same whatever the number of rows, while the total time grows with it.<br/>
+ * <br/>
+ * It is not a unit test (its name does not end with "Test", so Maven does not run it). Run it from the IDE, or with :<br/>
+ * mvn test-compile exec:java -Dexec.mainClass=tutorial.springboot.serving_web_content.DirectoryRenderingBenchmark -Dexec.classpathScope=test
+ */
+public class DirectoryRenderingBenchmark {
+
+	private static final int[] ROWS = { 1_000, 100_000, 1_000_000 };
+	private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"");
+
+	public static void main(String[] args) throws Exception {
+		File dataBase = Files.createTempFile("springboot-directory", ".db").toFile();
+		String url = "jdbc:sqlite:" + dataBase.getAbsolutePath();
+
+		ConfigurableApplicationContext context = new SpringApplication(SpringbootApplication.class).run(
+				"--spring.datasource.url=" + url,
+				"--server.port=0",
+				"--logging.level.root=WARN",
+				"--spring.main.banner-mode=off");
+
+		try {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			String baseUri = "http://localhost:" + port;
+			HttpClient client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+			logIn(client, baseUri);
+
+			int inserted = 0;
+			for (int rows : ROWS) {
+				insertPersons(url, inserted, rows);
+				inserted = rows;
+				read(client, baseUri); // Warm up.
+
+				long start = System.nanoTime();
+				HttpResponse<InputStream> response = client.send(
+						HttpRequest.newBuilder(URI.create(baseUri + "/directory/persons")).build(), BodyHandlers.ofInputStream());
+				long bytes = 0;
+				long firstByte = 0;
+				try (InputStream body = response.body()) {
+					byte[] buffer = new byte[8192];
+					for (int read; (read = body.read(buffer)) != -1; bytes += read) {
+						if (firstByte == 0) {
+							firstByte = System.nanoTime();
+						}
+					}
+				}
+				long end = System.nanoTime();
+				System.out.printf("%9d rows : first byte after %6.1f ms, %6d KB in %8.1f ms%n", rows,
+						(firstByte - start) / 1e6, bytes / 1024, (end - start) / 1e6);
+			}
+		} finally {
+			context.close();
+			dataBase.delete();
+			new File(dataBase.getAbsolutePath() + "-wal").delete();
+			new File(dataBase.getAbsolutePath() + "-shm").delete();
+		}
+	}
+
+	private static void insertPersons(String url, int from, int to) throws Exception {
+		try (Connection connection = DriverManager.getConnection(url);
+				PreparedStatement insert = connection.prepareStatement("insert into person (id, name, message) values (?, ?, ?)")) {
+			connection.setAutoCommit(false);
+			for (int i = from; i < to; i++) {
+				insert.setLong(1, 1_000_000_000L + i);
+				insert.setString(2, "Person " + i);
+				insert.setString(3, "Message number " + i);
+				insert.addBatch();
+				if (i % 10_000 == 0) {
+					insert.executeBatch();
+				}
+			}
+			insert.executeBatch();
+			connection.commit();
+		}
+	}
+
+	private static void read(HttpClient client, String baseUri) throws Exception {
+		client.send(HttpRequest.newBuilder(URI.create(baseUri + "/directory/persons")).build(), BodyHandlers.discarding());
+	}
+
+	/**
+	 * Log in through the login form. Watch ThreadModelLoadBenchmark for more details.
+	 */
+	private static void logIn(HttpClient client, String baseUri) throws Exception {
+		String loginPage = client.send(HttpRequest.newBuilder(URI.create(baseUri + "/security_login")).build(),
+				BodyHandlers.ofString()).body();
+		Matcher matcher = CSRF_TOKEN.matcher(loginPage);
+		if (!matcher.find()) {
+			throw new IllegalStateException("No CSRF token found in " + loginPage);
+		}
+
+		String form = "username=user&password=password&_csrf=" + URLEncoder.encode(matcher.group(1), StandardCharsets.UTF_8);
+		client.send(HttpRequest.newBuilder(URI.create(baseUri + "/security_login"))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(BodyPublishers.ofString(form))
+				.build(), BodyHandlers.discarding());
+	}
+}
@@ -0,0 +1,161 @@
+package tutorial.springboot.sqlite;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Compare the throughput of a mixed read/write load, before and after SQLiteDataSourceConfig :<br/>
+ * - "before" : rollback journal (DELETE mode), one shared pool of 10 connections, as Spring Boot configures it by default.<br/>
+ * - "after" : WAL mode, a pool of one writer connection and a pool of read-only connections.<br/>
+ * <br/>
+ * It is not a unit test (its name does not end with "Test", so Maven does not run it). Run it from the IDE, or with :<br/>
+ * mvn test-compile exec:java -Dexec.mainClass=tutorial.springboot.sqlite.SQLiteConcurrencyBenchmark -Dexec.classpathScope=test<br/>
+ * <br/>
+ * Each of the 16 threads does 90% of reads by id and 10% of inserts, for 10 seconds, on a temporary data base file. The number of
+ * operations per second and of failed operations (mostly SQLITE_BUSY) are printed for both configurations.
+ */
+public class SQLiteConcurrencyBenchmark {
+
+	private static final int THREADS = 16;
+	private static final int ROWS = 10_000;
+	private static final int WRITE_PERCENT = 10;
+	private static final long DURATION_SECONDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		run("before (DELETE journal, shared pool of 10)", false);
+		run("after (WAL, 1 writer + 4 readers)", true);
+	}
+
+	private static void run(String name, boolean wal) throws Exception {
+		File file = Files.createTempFile("sqlite-benchmark", ".db").toFile();
+		String url = "jdbc:sqlite:" + file.getAbsolutePath();
+
+		HikariDataSource writer;
+		HikariDataSource reader;
+		if (wal) {
+			writer = pool(url, 1, config(JournalMode.WAL, false));
+			reader = pool(url, 4, config(JournalMode.WAL, true));
+			reader.setReadOnly(true);
+		} else {
+			writer = pool(url, 10, config(JournalMode.DELETE, false));
+			reader = writer;
+		}
+
+		try {
+			fill(writer);
+
+			LongAdder operations = new LongAdder();
+			LongAdder failures = new LongAdder();
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					while (System.nanoTime() < end) {
+						try {
+							if (ThreadLocalRandom.current().nextInt(100) < WRITE_PERCENT) {
+								insert(writer);
+							} else {
+								read(reader);
+							}
+							operations.increment();
+						} catch (SQLException e) {
+							failures.increment();
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			executor.shutdown();
+
+			System.out.printf("%-45s %10.0f ops/s %8d failures%n", name, operations.sum() / (double) DURATION_SECONDS,
+					failures.sum());
+		} finally {
+			if (reader != writer) {
+				reader.close();
+			}
+			writer.close();
+			file.delete();
+			new File(file.getAbsolutePath() + "-wal").delete();
+			new File(file.getAbsolutePath() + "-shm").delete();
+		}
+	}
+
+	private static SQLiteConfig config(JournalMode journalMode, boolean readOnly) {
+		SQLiteConfig config = new SQLiteConfig();
+		if (!readOnly) {
+			config.setJournalMode(journalMode);
+		}
+		config.setReadOnly(readOnly);
+		config.setSynchronous(SynchronousMode.NORMAL);
+		config.setBusyTimeout(5000);
+		return config;
+	}
+
+	private static HikariDataSource pool(String url, int size, SQLiteConfig config) {
+		HikariDataSource pool = new HikariDataSource();
+		pool.setJdbcUrl(url);
+		pool.setMaximumPoolSize(size);
+		pool.setDataSourceProperties(config.toProperties());
+		return pool;
+	}
+
+	private static void fill(HikariDataSource writer) throws SQLException {
+		try (Connection connection = writer.getConnection()) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("create table person (id integer primary key, name varchar(255), description varchar(255))");
+			}
+			connection.setAutoCommit(false);
+			try (PreparedStatement insert = connection.prepareStatement("insert into person (name, description) values (?, ?)")) {
+				for (int i = 0; i < ROWS; i++) {
+					insert.setString(1, "Person " + i);
+					insert.setString(2, "Description " + i);
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+			connection.commit();
+		}
+	}
+
+	private static void read(HikariDataSource reader) throws SQLException {
+		try (Connection connection = reader.getConnection();
+				PreparedStatement select = connection.prepareStatement("select name, description from person where id = ?")) {
+			select.setLong(1, 1 + ThreadLocalRandom.current().nextInt(ROWS));
+			try (ResultSet resultSet = select.executeQuery()) {
+				resultSet.next();
+			}
+		}
+	}
+
+	private static void insert(HikariDataSource writer) throws SQLException {
+		try (Connection connection = writer.getConnection();
+				PreparedStatement insert = connection.prepareStatement("insert into person (name, description) values (?, ?)")) {
+			insert.setString(1, "New person");
+			insert.setString(2, "Inserted by the benchmark");
+			insert.executeUpdate();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package tutorial.springboot.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Check that read-only transactions use the reader pool, and other transactions the single writer connection. Pools' active 
+ * connections are read while the transaction is still running.
+ */
+@SpringBootTest
+public class SQLiteDataSourceConfigTest {
+
+	@Autowired
+	private PersonRepository repository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private HikariDataSource sqliteWriterPool;
+
+	@Autowired
+	private HikariDataSource sqliteReaderPool;
+
+	@Test
+	public void readOnlyTransactionShouldUseReaderPool() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(true);
+
+		transaction.executeWithoutResult(status -> {
+			repository.findAll();
+			assertThat(sqliteReaderPool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+			assertThat(sqliteWriterPool.getHikariPoolMXBean().getActiveConnections()).isZero();
+		});
+	}
+
+	@Test
+	public void readWriteTransactionShouldUseWriter() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+		transaction.executeWithoutResult(status -> {
+			Person person = repository.save(new Person("Odie", "Woof."));
+			repository.flush();
+			assertThat(sqliteWriterPool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+			assertThat(sqliteReaderPool.getHikariPoolMXBean().getActiveConnections()).isZero();
+			repository.delete(person);
+		});
+	}
+}
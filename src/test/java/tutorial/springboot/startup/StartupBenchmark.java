@@ -0,0 +1,139 @@
+package tutorial.springboot.startup;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time to the first successful request on "/employees", with and without the AppCDS archive of the "cds" maven profile (see
+ * CdsTraining) :<br/>
+ * - The application is started in a new JVM, on a temporary data base file, from target/cds (the jars the archive was trained
+ * on).<br/>
+ * - A token is asked to "/api/token" until the application answers, then "/employees" is called with it.<br/>
+ * - The time from the start of the JVM to the first "200 OK" of "/employees" is measured, then the JVM is stopped.<br/>
+ * <br/>
+ * Runs with and without the archive alternate, so that both suffer the same from the machine's load. With the archive, the JVM
+ * is started with "-Xshare:on" : it refuses to start instead of silently ignoring an archive that does not match its class path
+ * or JDK.<br/>
+ * <br/>
+ * It is not a unit test (its name does not end with "Test", so Maven does not run it). Build target/cds first, then run it from
+ * the IDE, or with :<br/>
+ * mvn -P cds package -DskipTests<br/>
+ * mvn test-compile exec:java -Dexec.mainClass=tutorial.springboot.startup.StartupBenchmark -Dexec.classpathScope=test
+ */
+public class StartupBenchmark {
+
+	private static final int RUNS = 5;
+	private static final Duration TIMEOUT = Duration.ofMinutes(2);
+	private static final File CDS_DIRECTORY = new File("target/cds").getAbsoluteFile();
+	private static final Pattern ACCESS_TOKEN = Pattern.compile("\"access_token\":\"([^\"]+)\"");
+
+	public static void main(String[] args) throws Exception {
+		File[] jars = CDS_DIRECTORY.listFiles((directory, name) -> name.endsWith("-cds.jar"));
+		File archive = new File(CDS_DIRECTORY, "springboot.jsa");
+		if (jars == null || jars.length != 1 || !archive.isFile()) {
+			throw new IllegalStateException("No archive in " + CDS_DIRECTORY + " : build it with \"mvn -P cds package -DskipTests\"");
+		}
+		String classPath = jars[0].getPath() + File.pathSeparator + new File(CDS_DIRECTORY, "lib").getPath() + File.separator + "*";
+
+		System.out.println("JDK " + Runtime.version());
+		List<Long> withoutArchive = new ArrayList<>();
+		List<Long> withArchive = new ArrayList<>();
+		for (int i = 0; i < RUNS; i++) {
+			withoutArchive.add(timeToFirstRequest(classPath, null));
+			withArchive.add(timeToFirstRequest(classPath, archive));
+			System.out.printf("run %d : without archive %5d ms, with archive %5d ms%n", i + 1, withoutArchive.get(i), withArchive.get(i));
+		}
+		print("without archive", withoutArchive);
+		print("with archive", withArchive);
+	}
+
+	private static long timeToFirstRequest(String classPath, File archive) throws Exception {
+		File dataBase = Files.createTempFile("springboot-startup", ".db").toFile();
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+
+		List<String> command = new ArrayList<>(List.of(new File(System.getProperty("java.home"), "bin/java").getPath()));
+		if (archive != null) {
+			command.addAll(List.of("-Xshare:on", "-XX:SharedArchiveFile=" + archive.getPath()));
+		}
+		command.addAll(List.of("-cp", classPath, "tutorial.springboot.SpringbootApplication",
+				"--spring.datasource.url=jdbc:sqlite:" + dataBase.getAbsolutePath(),
+				"--server.port=" + port,
+				"--logging.level.root=WARN",
+				"--spring.main.banner-mode=off",
+				"--startup.display-beans=false"));
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+		try {
+			HttpClient client = HttpClient.newHttpClient();
+			String baseUri = "http://localhost:" + port;
+			String token = null;
+			while (true) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("The application stopped with exit code " + process.exitValue() + " : " + command);
+				}
+				if (System.nanoTime() - start > TIMEOUT.toNanos()) {
+					throw new IllegalStateException("The application did not answer in " + TIMEOUT);
+				}
+				try {
+					if (token == null) {
+						token = apiToken(client, baseUri);
+					} else if (client.send(HttpRequest.newBuilder(URI.create(baseUri + "/employees"))
+							.header("Authorization", "Bearer " + token)
+							.build(), BodyHandlers.discarding()).statusCode() == 200) {
+						return (System.nanoTime() - start) / 1_000_000;
+					}
+				} catch (ConnectException e) {
+					// Not listening yet.
+					Thread.sleep(10);
+				}
+			}
+		} finally {
+			process.destroy();
+			process.waitFor();
+			dataBase.delete();
+			new File(dataBase.getAbsolutePath() + "-wal").delete();
+			new File(dataBase.getAbsolutePath() + "-shm").delete();
+		}
+	}
+
+	/**
+	 * Get a bearer token for the JSON API (see ApiTokenController), or null if the application does not give one yet.
+	 */
+	private static String apiToken(HttpClient client, String baseUri) throws Exception {
+		String credentials = Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUri + "/api/token"))
+				.header("Authorization", "Basic " + credentials)
+				.POST(BodyPublishers.noBody())
+				.build(), BodyHandlers.ofString());
+
+		Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+		return response.statusCode() == 200 && matcher.find() ? matcher.group(1) : null;
+	}
+
+	private static void print(String name, List<Long> millis) {
+		List<Long> sorted = new ArrayList<>(millis);
+		Collections.sort(sorted);
+		System.out.printf("%-16s median %5d ms, min %5d ms, max %5d ms%n", name, sorted.get(sorted.size() / 2), sorted.get(0),
+				sorted.get(sorted.size() - 1));
+	}
+}
@@ -0,0 +1,127 @@
+package tutorial.springboot.startup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.StartupStep.Tag;
+
+import tutorial.springboot.SpringbootApplication;
+import tutorial.springboot.bulkload.BulkLoadRunner;
+import tutorial.springboot.rest_application.EmployeeRepository;
+import tutorial.springboot.rest_application.OrderRepository;
+
+/**
+ * Tests on the "fast-startup" profile (see StartupConfig). The application is started as by SpringbootApplication.main(), on a
+ * temporary data base file.
+ */
+public class StartupTest {
+
+	private static File dataBase;
+	private static BufferingApplicationStartup applicationStartup;
+	private static ConfigurableApplicationContext context;
+
+	@BeforeAll
+	public static void start() throws Exception {
+		dataBase = Files.createTempFile("springboot-startup", ".db").toFile();
+		applicationStartup = new BufferingApplicationStartup(10_000);
+
+		SpringApplication application = new SpringApplication(SpringbootApplication.class);
+		application.setApplicationStartup(applicationStartup);
+		context = application.run(
+				"--spring.datasource.url=jdbc:sqlite:" + dataBase.getAbsolutePath(),
+				"--spring.profiles.active=fast-startup",
+				"--server.port=0",
+				"--spring.main.banner-mode=off");
+	}
+
+	@AfterAll
+	public static void stop() {
+		context.close();
+		dataBase.delete();
+		new File(dataBase.getAbsolutePath() + "-wal").delete();
+		new File(dataBase.getAbsolutePath() + "-shm").delete();
+	}
+
+	@Test
+	public void onlyWebBeansShouldBeCreatedAtStartup() {
+		assertThat(context.containsBean("commandLineRunner")).isFalse();
+
+		assertThat(context.getBeanFactory().containsSingleton("employeeController")).isTrue();
+		assertThat(context.getBeanFactory().containsSingleton("employeeSearchIndex")).isTrue();
+		assertThat(context.getBeanFactory().containsSingleton("requestMappingHandlerMapping")).isTrue();
+		// Spring Boot's JdbcTemplate : no bean used at startup needs it.
+		assertThat(context.getBeanFactory().containsSingleton("jdbcTemplate")).isFalse();
+	}
+
+	@Test
+	public void runnersShouldBeRecordedAsStartupSteps() {
+		List<String> runners = applicationStartup.getBufferedTimeline().getEvents().stream()
+				.map(TimelineEvent::getStartupStep)
+				.filter(step -> step.getName().equals(RunnerStartupSteps.STEP))
+				.flatMap(step -> StreamSupport.stream(step.getTags().spliterator(), false))
+				.map(Tag::getValue)
+				.collect(Collectors.toList());
+
+		assertThat(runners).contains("initDatabase", "initSqlite", "bulkLoadRunner");
+	}
+
+	@Test
+	public void recordedRunnersShouldKeepTheirTypeAndOrder() throws Exception {
+		assertThat(context.getBean(BulkLoadRunner.class)).isNotNull();
+
+		RunnerStartupSteps runnerStartupSteps = new RunnerStartupSteps();
+		List<Object> runners = new ArrayList<>(List.of(
+				runnerStartupSteps.postProcessAfterInitialization(new SecondRunner(), "secondRunner"),
+				runnerStartupSteps.postProcessAfterInitialization(new FirstRunner(), "firstRunner")));
+		AnnotationAwareOrderComparator.sort(runners);
+
+		assertThat(runners.get(0)).isInstanceOf(FirstRunner.class);
+		assertThat(runners.get(1)).isInstanceOf(SecondRunner.class);
+	}
+
+	@Test
+	public void seedRowsShouldOnlyBeInsertedOnce() throws Exception {
+		EmployeeRepository employeeRepository = context.getBean(EmployeeRepository.class);
+		OrderRepository orderRepository = context.getBean(OrderRepository.class);
+		long employees = employeeRepository.count();
+		long orders = orderRepository.count();
+		assertThat(employees).isEqualTo(2);
+
+		context.getBean("initDatabase", CommandLineRunner.class).run();
+
+		assertThat(employeeRepository.count()).isEqualTo(employees);
+		assertThat(orderRepository.count()).isEqualTo(orders);
+	}
+
+	@Order(1)
+	static class FirstRunner implements CommandLineRunner {
+
+		@Override
+		public void run(String... args) {
+		}
+	}
+
+	@Order(2)
+	static class SecondRunner implements CommandLineRunner {
+
+		@Override
+		public void run(String... args) {
+		}
+	}
+}
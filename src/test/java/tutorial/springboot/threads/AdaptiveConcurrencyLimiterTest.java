@@ -0,0 +1,66 @@
+package tutorial.springboot.threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of AdaptiveConcurrencyLimiter and VegasLimit.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+	@Test
+	public void limitShouldFollowDataBaseLatency() {
+		VegasLimit limit = new VegasLimit(10, 2, 100);
+
+		// Busy, and as fast as without load : the limit grows.
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(1_000_000, limit.getLimit() - 1);
+		}
+		int grown = limit.getLimit();
+		assertThat(grown).isGreaterThan(10);
+
+		// Few requests running : nothing is learnt.
+		limit.onSample(1_000_000, 0);
+		assertThat(limit.getLimit()).isEqualTo(grown);
+
+		// Requests wait behind each other : the limit shrinks, down to its minimum.
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(3_000_000, limit.getLimit() - 1);
+		}
+		assertThat(limit.getLimit()).isLessThan(grown);
+		for (int i = 0; i < 100; i++) {
+			limit.onDrop();
+		}
+		assertThat(limit.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	public void requestsOverTheLimitShouldBeRefusedAtOnce() {
+		AdaptiveConcurrencyProperties properties = new AdaptiveConcurrencyProperties();
+		properties.getWrite().setInitialLimit(1);
+		properties.getWrite().setMaxLimit(1);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+
+		MockHttpServletRequest first = new MockHttpServletRequest("POST", "/employees");
+		MockHttpServletRequest second = new MockHttpServletRequest("POST", "/employees");
+		assertThat(limiter.preHandle(first, new MockHttpServletResponse(), null)).isTrue();
+		assertThatThrownBy(() -> limiter.preHandle(second, new MockHttpServletResponse(), null))
+				.isInstanceOf(ConcurrencyLimitExceededException.class);
+		assertThat(meterRegistry.get("concurrency.rejected").tag("kind", "write").counter().count()).isEqualTo(1);
+
+		// Reads have their own limit.
+		assertThat(limiter.preHandle(new MockHttpServletRequest("GET", "/employees"), new MockHttpServletResponse(), null)).isTrue();
+		assertThat(meterRegistry.get("concurrency.inflight").tag("kind", "read").gauge().value()).isEqualTo(1);
+
+		limiter.afterCompletion(first, new MockHttpServletResponse(), null, null);
+		assertThat(limiter.preHandle(second, new MockHttpServletResponse(), null)).isTrue();
+		assertThat(meterRegistry.get("concurrency.limit").tag("kind", "write").gauge().value()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,74 @@
+package tutorial.springboot.threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of DatabaseExecutor, with a single thread and a queue of one task.
+ */
+public class DatabaseExecutorTest {
+
+	@Test
+	public void tasksShouldBeRefusedWhenQueueIsFullAndTimeOut() throws Exception {
+		DatabaseExecutorProperties properties = new DatabaseExecutorProperties();
+		properties.setThreads(1);
+		properties.setQueueCapacity(1);
+		properties.setTimeout(Duration.ofMillis(200));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		DatabaseExecutor executor = new DatabaseExecutor(properties, meterRegistry);
+
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> running = executor.supply(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return "done";
+		});
+		CompletableFuture<String> queued = executor.supply(() -> "queued");
+		CompletableFuture<String> refused = executor.supply(() -> "refused");
+
+		assertThatThrownBy(refused::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(DatabaseBusyException.class);
+		assertThat(meterRegistry.get("database.executor.rejected").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("executor.queued").tag("name", "database").gauge().value()).isEqualTo(1);
+
+		// The running task is only released once timed out, else it could complete first.
+		assertThatThrownBy(running::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(DatabaseBusyException.class);
+		assertThatThrownBy(queued::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(DatabaseBusyException.class);
+		release.countDown();
+		// The counter is incremented by the timer's thread, just after completing the task.
+		awaitUntil(() -> meterRegistry.get("database.executor.timeouts").counter().count() >= 2);
+		assertThat(meterRegistry.get("database.executor.timeouts").counter().count()).isEqualTo(2);
+
+		// The queued task is skipped, as it timed out : the executor is then free again.
+		awaitUntil(() -> executor.queueDepth() == 0);
+		assertThat(executor.supply(() -> "after").get()).isEqualTo("after");
+		executor.shutdown();
+	}
+
+	/**
+	 * Wait for a condition set by another thread, for at most 5 seconds : a regression fails the test instead of hanging the build.
+	 */
+	private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() - deadline > 0) {
+				fail("Condition not met within 5 seconds");
+			}
+			Thread.sleep(10);
+		}
+	}
+}
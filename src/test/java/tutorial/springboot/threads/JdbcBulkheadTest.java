@@ -0,0 +1,61 @@
+package tutorial.springboot.threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of JdbcBulkhead, calling its aspect method directly with mocked repository calls.
+ */
+public class JdbcBulkheadTest {
+
+	@Test
+	public void callShouldBeRefusedWhenAllPermitsAreUsed() throws Throwable {
+		JdbcBulkheadProperties properties = new JdbcBulkheadProperties();
+		properties.setPermits(1);
+		properties.setMaxWait(Duration.ofMillis(50));
+		JdbcBulkhead bulkhead = new JdbcBulkhead(properties);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		ProceedingJoinPoint slowCall = call("slow()");
+		when(slowCall.proceed()).then(invocation -> {
+			started.countDown();
+			finish.await();
+			return "slow";
+		});
+
+		CompletableFuture<Object> slowResult = CompletableFuture.supplyAsync(() -> {
+			try {
+				return bulkhead.limit(slowCall);
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		started.await();
+
+		assertThat(bulkhead.availablePermits()).isZero();
+		assertThatThrownBy(() -> bulkhead.limit(call("fast()"))).isInstanceOf(BulkheadFullException.class);
+
+		finish.countDown();
+		assertThat(slowResult.get()).isEqualTo("slow");
+		assertThat(bulkhead.availablePermits()).isEqualTo(1);
+	}
+
+	private static ProceedingJoinPoint call(String name) {
+		ProceedingJoinPoint call = mock(ProceedingJoinPoint.class);
+		Signature signature = mock(Signature.class);
+		when(signature.toShortString()).thenReturn(name);
+		when(call.getSignature()).thenReturn(signature);
+		return call;
+	}
+}
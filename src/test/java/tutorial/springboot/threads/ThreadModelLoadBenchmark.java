@@ -0,0 +1,171 @@
+package tutorial.springboot.threads;
+
+import java.io.File;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import tutorial.springboot.SpringbootApplication;
+
+/**
+ * Compare how the application behaves when SQLite is slow, with Tomcat's platform threads and with virtual threads (see
+ * VirtualThreadsConfig) :<br/>
+ * - The application is started on a temporary data base file.<br/>
+ * - This program takes SQLite's write lock with its own connection ("begin exclusive"), for 8 seconds.<br/>
+ * - Meanwhile, 400 clients create employees (POST "/employees") : they all wait for the lock, or for JdbcBulkhead.<br/>
+ * - Meanwhile too, "/hello" (that does not use the data base) is called 10 times, and its response times are printed.<br/>
+ * <br/>
+ * With platform threads, the 200 threads of Tomcat are soon all waiting, and "/hello" only answers when some of them are freed.
+ * With virtual threads, it answers at once. Virtual threads need JDK 21 : on an older JDK, both runs use platform threads.<br/>
+ * <br/>
+ * AdaptiveConcurrencyLimiter refuses most writes at once (503 status) : they no longer hold Tomcat's threads, and "/hello" 
+ * answers at once too. Add "--adaptive-concurrency.enabled=false" to the application's arguments to see the threads pile up.<br/>
+ * <br/>
+ * It is not a unit test (its name does not end with "Test", so Maven does not run it). Run it from the IDE, or with :<br/>
+ * mvn test-compile exec:java -Dexec.mainClass=tutorial.springboot.threads.ThreadModelLoadBenchmark -Dexec.classpathScope=test
+ */
+public class ThreadModelLoadBenchmark {
+
+	private static final int CLIENTS = 400;
+	private static final Duration LOCK_DURATION = Duration.ofSeconds(8);
+	private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"");
+	private static final Pattern ACCESS_TOKEN = Pattern.compile("\"access_token\":\"([^\"]+)\"");
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("JDK " + Runtime.version());
+		run(false);
+		run(true);
+	}
+
+	private static void run(boolean virtualThreads) throws Exception {
+		File dataBase = Files.createTempFile("springboot-load", ".db").toFile();
+		String url = "jdbc:sqlite:" + dataBase.getAbsolutePath();
+
+		ConfigurableApplicationContext context = new SpringApplication(SpringbootApplication.class).run(
+				"--spring.datasource.url=" + url,
+				"--server.port=0",
+				"--virtual-threads.enabled=" + virtualThreads,
+				// The 400 clients share the same user : they would be limited as a single one (see ClientRateLimiter).
+				"--rate-limit.enabled=false",
+				"--logging.level.root=WARN",
+				"--spring.main.banner-mode=off");
+
+		try {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			String baseUri = "http://localhost:" + port;
+			HttpClient client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+			logIn(client, baseUri);
+			String apiToken = apiToken(client, baseUri);
+
+			List<CompletableFuture<HttpResponse<String>>> writes = new ArrayList<>();
+			List<Long> helloMillis = new ArrayList<>();
+			long start = System.nanoTime();
+
+			try (Connection lock = DriverManager.getConnection(url); Statement statement = lock.createStatement()) {
+				statement.execute("begin exclusive");
+
+				for (int i = 0; i < CLIENTS; i++) {
+					writes.add(client.sendAsync(HttpRequest.newBuilder(URI.create(baseUri + "/employees"))
+							.header("Content-Type", "application/json")
+							.header("Authorization", "Bearer " + apiToken)
+							.timeout(Duration.ofSeconds(60))
+							.POST(BodyPublishers.ofString("{\"firstName\":\"Load\",\"lastName\":\"Test\",\"role\":\"client " + i + "\"}"))
+							.build(), BodyHandlers.ofString()));
+				}
+				Thread.sleep(1000);
+
+				for (int i = 0; i < 10; i++) {
+					long helloStart = System.nanoTime();
+					client.send(HttpRequest.newBuilder(URI.create(baseUri + "/hello")).timeout(Duration.ofSeconds(60)).build(),
+							BodyHandlers.ofString());
+					helloMillis.add((System.nanoTime() - helloStart) / 1_000_000);
+				}
+
+				long remaining = LOCK_DURATION.toMillis() - (System.nanoTime() - start) / 1_000_000;
+				if (remaining > 0) {
+					Thread.sleep(remaining);
+				}
+				statement.execute("rollback");
+			}
+
+			Map<Integer, Integer> statuses = new TreeMap<>();
+			for (CompletableFuture<HttpResponse<String>> write : writes) {
+				statuses.merge(write.get().statusCode(), 1, Integer::sum);
+			}
+			long totalMillis = (System.nanoTime() - start) / 1_000_000;
+
+			Collections.sort(helloMillis);
+			System.out.printf("%-16s /hello median %5d ms, max %5d ms | %d writes done in %d ms, statuses %s%n",
+					virtualThreads ? "virtual threads" : "platform threads", helloMillis.get(helloMillis.size() / 2),
+					helloMillis.get(helloMillis.size() - 1), CLIENTS, totalMillis, statuses);
+		} finally {
+			context.close();
+			dataBase.delete();
+			new File(dataBase.getAbsolutePath() + "-wal").delete();
+			new File(dataBase.getAbsolutePath() + "-shm").delete();
+		}
+	}
+
+	/**
+	 * Log in through the login form, as a browser would, to call "/hello". Thymeleaf adds the CSRF token into the login form.
+	 */
+	private static void logIn(HttpClient client, String baseUri) throws Exception {
+		String loginPage = client.send(HttpRequest.newBuilder(URI.create(baseUri + "/security_login")).build(),
+				BodyHandlers.ofString()).body();
+
+		String form = "username=user&password=password&_csrf=" + URLEncoder.encode(csrfToken(loginPage), StandardCharsets.UTF_8);
+		client.send(HttpRequest.newBuilder(URI.create(baseUri + "/security_login"))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(BodyPublishers.ofString(form))
+				.build(), BodyHandlers.discarding());
+	}
+
+	/**
+	 * Get a bearer token for the JSON API (see ApiTokenController).
+	 */
+	private static String apiToken(HttpClient client, String baseUri) throws Exception {
+		String credentials = Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+		String response = client.send(HttpRequest.newBuilder(URI.create(baseUri + "/api/token"))
+				.header("Authorization", "Basic " + credentials)
+				.POST(BodyPublishers.noBody())
+				.build(), BodyHandlers.ofString()).body();
+
+		Matcher matcher = ACCESS_TOKEN.matcher(response);
+		if (!matcher.find()) {
+			throw new IllegalStateException("No token found in " + response);
+		}
+		return matcher.group(1);
+	}
+
+	private static String csrfToken(String page) {
+		Matcher matcher = CSRF_TOKEN.matcher(page);
+		if (!matcher.find()) {
+			throw new IllegalStateException("No CSRF token found in " + page);
+		}
+		return matcher.group(1);
+	}
+}